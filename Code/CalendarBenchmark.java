@@ -0,0 +1,388 @@
+/**
+*Micro-benchmarks for the calendar's hot paths on synthetic data sets: loading, date lookup,
+*conflict checks, month rendering and saving. Each benchmark is warmed up, then measured over
+*several iterations, and reported as mean time per operation.
+*Usage: java CalendarBenchmark [sizes] [recurring share] [warmup iterations] [iterations]
+*for example: java CalendarBenchmark 1000,100000,1000000 0.1 3 5
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class CalendarBenchmark {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 2 * 365;
+    private static final int LOOKUPS = 100_000;
+    private static final int BATCH = 10_000;
+    private static final LocalTime WORK_START = LocalTime.of(8, 0);
+    private static final LocalTime WORK_END = LocalTime.of(18, 0);
+
+    // Results are folded in here so the JIT cannot drop the measured work
+    private static volatile long blackhole;
+
+    private int warmupIterations;
+    private int iterations;
+
+    /**
+     * Creates a benchmark runner.
+     * @param warmupIterations the number of unmeasured runs before measuring
+     * @param iterations       the number of measured runs
+     */
+    public CalendarBenchmark(int warmupIterations, int iterations) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Main method to run every benchmark for every data set size.
+     * @param args sizes, recurring share, warmup iterations and measured iterations, all optional
+     * @throws IOException if the generated files cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        String sizes = args.length > 0 ? args[0] : "1000,100000,1000000";
+        double recurringShare = args.length > 1 ? Double.parseDouble(args[1]) : 0.1;
+        int warmup = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int measured = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        checkRoundTrip();
+        CalendarBenchmark benchmark = new CalendarBenchmark(warmup, measured);
+        for (String size : sizes.split(",")) {
+            benchmark.runAll(Integer.parseInt(size.trim()), recurringShare);
+        }
+    }
+
+    /**
+     * Runs every benchmark on one synthetic data set.
+     * @param size           the number of events
+     * @param recurringShare the share of recurring events
+     * @throws IOException if the generated files cannot be written or read
+     */
+    public void runAll(int size, double recurringShare) throws IOException {
+        System.out.println("== " + size + " events, " + Math.round(recurringShare * 100) + "% recurring ==");
+
+        File eventsFile = File.createTempFile("events", ".txt");
+        File snapshotFile = File.createTempFile("events", ".snapshot");
+        eventsFile.deleteOnExit();
+        snapshotFile.deleteOnExit();
+        new EventGenerator(42, FIRST_DAY, DAYS, recurringShare).writeEventsFile(eventsFile.getPath(), size);
+
+        MyCalendar calendar = new MyCalendar();
+        List<Event> events = new EventGenerator(42, FIRST_DAY, DAYS, recurringShare).generate(size);
+        events.forEach(calendar::add);
+        calendar.saveSnapshot(snapshotFile.getPath());
+
+        PrintStream console = System.out;
+        PrintStream nullSink = new PrintStream(OutputStream.nullOutputStream());
+
+        run("loadEvents", 1, () -> {
+            MyCalendar loaded = new MyCalendar();
+            System.setOut(nullSink);
+            try {
+                loaded.loadEvents(eventsFile.getPath());
+            } finally {
+                System.setOut(console);
+            }
+            blackhole += loaded.getAllOneTimeEvents().size();
+        });
+
+        run("loadEventsMapped", 1, () -> {
+            MyCalendar loaded = new MyCalendar();
+            System.setOut(nullSink);
+            try {
+                loaded.loadEventsMapped(eventsFile.getPath());
+            } finally {
+                System.setOut(console);
+            }
+            blackhole += loaded.getAllOneTimeEvents().size();
+        });
+
+        run("loadSnapshot", 1, () -> {
+            MyCalendar loaded = new MyCalendar();
+            loaded.loadSnapshot(snapshotFile.getPath());
+            blackhole += loaded.getAllOneTimeEvents().size();
+        });
+
+        run("loadSnapshot (columnar)", 1, () -> {
+            ColumnarEventStore store = new ColumnarEventStore();
+            store.loadSnapshot(snapshotFile.getPath());
+            blackhole += store.size();
+        });
+
+        run("loadSnapshot (off-heap)", 1, () -> {
+            OffHeapEventStore store = new OffHeapEventStore();
+            store.loadSnapshot(snapshotFile.getPath());
+            blackhole += store.size();
+        });
+
+        ColumnarEventStore columns = new ColumnarEventStore();
+        columns.loadSnapshot(snapshotFile.getPath());
+        System.out.printf("%-32s %14d bytes/event%n", "columnar store heap", columns.estimateHeapBytes() / size);
+        OffHeapEventStore offHeap = new OffHeapEventStore();
+        offHeap.loadSnapshot(snapshotFile.getPath());
+        System.out.printf("%-32s %14.2f bytes/event  %d bytes off-heap/event%n", "off-heap store heap",
+                (double) offHeap.estimateHeapBytes() / size, offHeap.getOffHeapBytes() / size);
+
+        LocalDate[] dates = randomDates(LOOKUPS);
+        TimeInterval[] slots = randomSlots(LOOKUPS);
+
+        run("getEventsForDate", LOOKUPS, () -> {
+            long found = 0;
+            for (LocalDate date : dates) {
+                found += calendar.getEventsForDate(date).size();
+            }
+            blackhole += found;
+        });
+
+        // The same lookups while every call is timed, to show the cost of leaving metrics on
+        CalendarMetrics metrics = CalendarMetrics.getInstance();
+        boolean wasEnabled = metrics.isEnabled();
+        metrics.setEnabled(true);
+        run("getEventsForDate (metrics on)", LOOKUPS, () -> {
+            long found = 0;
+            for (LocalDate date : dates) {
+                found += calendar.getEventsForDate(date).size();
+            }
+            blackhole += found;
+        });
+        metrics.setEnabled(wasEnabled);
+
+        run("getEventsForDate (columnar rows)", LOOKUPS, () -> {
+            long found = 0;
+            for (LocalDate date : dates) {
+                found += columns.rowsOn(date).length;
+            }
+            blackhole += found;
+        });
+
+        run("getEventsForDate (off-heap)", LOOKUPS, () -> {
+            long found = 0;
+            for (LocalDate date : dates) {
+                found += offHeap.getEventsForDate(date).size();
+            }
+            blackhole += found;
+        });
+
+        run("conflict check (overlaps scan)", LOOKUPS, () -> {
+            long conflicts = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                TimeInterval slot = slots[i];
+                if (calendar.getEventsForDate(dates[i]).stream().anyMatch(e -> e.getTimeInterval().overlaps(slot))) {
+                    conflicts++;
+                }
+            }
+            blackhole += conflicts;
+        });
+
+        run("conflict check (hasConflict)", LOOKUPS, () -> {
+            long conflicts = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                if (calendar.hasConflict(dates[i], slots[i])) {
+                    conflicts++;
+                }
+            }
+            blackhole += conflicts;
+        });
+
+        // A batch on the days after the calendar, checked and added, then taken out again
+        List<Event> batch = new EventGenerator(43, FIRST_DAY.plusDays(DAYS), DAYS, 0).generate(BATCH);
+        run("addAll + removeAll (batch)", BATCH, () -> {
+            List<Event> added = new ArrayList<>();
+            for (MyCalendar.AddResult result : calendar.addAll(batch, ConflictPolicy.REJECT)) {
+                if (result.isAdded()) {
+                    added.add(result.getEvent());
+                }
+            }
+            blackhole += calendar.removeAll(added);
+        });
+
+        ConflictAudit audit = new ConflictAudit(calendar);
+        run("ConflictAudit.auditAll", 1, () -> {
+            long[] found = new long[1];
+            audit.auditAll(conflict -> found[0]++);
+            blackhole += found[0];
+        });
+
+        FreeBusy freeBusy = new FreeBusy(calendar);
+        Duration hour = Duration.ofHours(1);
+        run("findFreeSlots (first 3, 1 week)", LOOKUPS, () -> {
+            long found = 0;
+            for (LocalDate date : dates) {
+                found += freeBusy.findFreeSlots(date, date.plusDays(6), WORK_START, WORK_END, hour, 3).size();
+            }
+            blackhole += found;
+        });
+
+        CalendarPrinter printer = new CalendarPrinter();
+        int months = DAYS / 30;
+        run("printCalendar (month)", months, () -> {
+            System.setOut(nullSink);
+            try {
+                for (int m = 0; m < months; m++) {
+                    printer.printCalendar(FIRST_DAY.plusMonths(m), calendar);
+                }
+            } finally {
+                System.setOut(console);
+            }
+        });
+        OccurrenceCache occurrences = calendar.getOccurrenceCache();
+        System.out.printf("%-32s %14d hits %14d misses %8d evictions%n", "occurrence cache",
+                occurrences.getHits(), occurrences.getMisses(), occurrences.getEvictions());
+
+        run("Event.toSave", size, () -> {
+            long length = 0;
+            for (Event event : events) {
+                length += event.toSave().length();
+            }
+            blackhole += length;
+        });
+
+        System.out.println();
+    }
+
+    /**
+     * Checks that a snapshot, and a journal replayed on recovery, give back exactly the events
+     * they were written from, down to the second, before any time is spent measuring them.
+     * @throws IOException if the snapshot or journal cannot be written or read
+     * @throws IllegalStateException if an event comes back different
+     */
+    public static void checkRoundTrip() throws IOException {
+        List<Event> events = List.of(
+                new Event("Standup", new TimeInterval(LocalTime.of(9, 0, 30), LocalTime.of(9, 15, 45)), FIRST_DAY),
+                new Event("Standup", new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 15)), FIRST_DAY),
+                new Event("Late", new TimeInterval(LocalTime.of(23, 0), LocalTime.of(23, 59, 59)), FIRST_DAY),
+                new Event("Review", new TimeInterval(LocalTime.of(0, 0, 1), LocalTime.of(1, 0)),
+                        FIRST_DAY, FIRST_DAY.plusDays(DAYS), Event.parseDays("MWF")));
+
+        MyCalendar calendar = new MyCalendar();
+        events.forEach(calendar::add);
+        File snapshotFile = File.createTempFile("roundtrip", ".snapshot");
+        snapshotFile.deleteOnExit();
+        calendar.saveSnapshot(snapshotFile.getPath());
+        MyCalendar loaded = new MyCalendar();
+        loaded.loadSnapshot(snapshotFile.getPath());
+        compare("Snapshot", calendar, loaded);
+
+        // Journal the same events, then remove the one whose times have seconds
+        File journalDir = Files.createTempDirectory("roundtrip").toFile();
+        MyCalendar journaled = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(journalDir.getPath(), journaled);
+        try {
+            events.forEach(journaled::add);
+            journaled.removeById(events.get(0).getId());
+        } finally {
+            journal.close();
+        }
+        MyCalendar recovered = new MyCalendar();
+        CalendarJournal.recover(journalDir.getPath(), recovered).close();
+        compare("Journal", journaled, recovered);
+        for (File file : journalDir.listFiles()) {
+            file.delete();
+        }
+        journalDir.delete();
+    }
+
+    /**
+     * Throws if two calendars do not hold the same events in the same order.
+     */
+    private static void compare(String what, MyCalendar expectedCalendar, MyCalendar actualCalendar) {
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        expectedCalendar.getAllOneTimeEvents().forEach(e -> expected.add(describe(e)));
+        expectedCalendar.getAllRecurringEvents().forEach(e -> expected.add(describe(e)));
+        actualCalendar.getAllOneTimeEvents().forEach(e -> actual.add(describe(e)));
+        actualCalendar.getAllRecurringEvents().forEach(e -> actual.add(describe(e)));
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(what + " round trip changed events: " + expected + " became " + actual);
+        }
+    }
+
+    /**
+     * Describes every saved field of an event, with times to the second.
+     */
+    private static String describe(Event event) {
+        String times = event.getStartTime().toSecondOfDay() + "-" + event.getEndTime().toSecondOfDay();
+        if (!event.isRecurring()) {
+            return event.getName() + " " + event.getDate() + " " + times;
+        }
+        return event.getName() + " " + event.getStartDate() + ".." + event.getEndDate() + " "
+                + event.getDayMask() + " " + times;
+    }
+
+    /**
+     * Warms up and measures one benchmark, then prints its mean time per operation.
+     * @param name       the benchmark name
+     * @param operations the number of operations performed by one run of the body
+     * @param body       the measured work
+     */
+    private void run(String name, int operations, Body body) throws IOException {
+        for (int i = 0; i < warmupIterations; i++) {
+            body.run();
+        }
+
+        double[] nanosPerOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            body.run();
+            nanosPerOp[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(variance / iterations);
+
+        System.out.printf("%-32s %14s ns/op  +- %-12s %14s ops/s%n", name,
+                format(mean), format(deviation), format(1e9 / mean));
+    }
+
+    private static String format(double value) {
+        return value >= 100 ? String.format("%,.0f", value) : String.format("%.2f", value);
+    }
+
+    private LocalDate[] randomDates(int count) {
+        Random random = new Random(7);
+        LocalDate[] dates = new LocalDate[count];
+        for (int i = 0; i < count; i++) {
+            dates[i] = FIRST_DAY.plusDays(random.nextInt(DAYS));
+        }
+        return dates;
+    }
+
+    private TimeInterval[] randomSlots(int count) {
+        Random random = new Random(11);
+        TimeInterval[] slots = new TimeInterval[count];
+        for (int i = 0; i < count; i++) {
+            int start = 8 * 60 + random.nextInt(10 * 60);
+            slots[i] = new TimeInterval(LocalTime.of(start / 60, start % 60), LocalTime.of((start + 30) / 60, (start + 30) % 60));
+        }
+        return slots;
+    }
+
+    /**
+     * The work measured by one benchmark run.
+     */
+    private interface Body {
+        void run() throws IOException;
+    }
+}
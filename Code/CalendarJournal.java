@@ -0,0 +1,556 @@
+/**
+*Write-ahead journal that makes every change to a calendar durable without rewriting the whole
+*calendar. Each added or removed event is appended as one small checksummed record; a background
+*thread writes and fsyncs whatever has piled up since its last sync, so one fsync commits a whole
+*group of changes. Compaction folds the journal into a new snapshot in the background.
+*A journal directory holds snapshot.N and journal.N files: snapshot.N holds every change made
+*before journal.N, so recovery loads the newest snapshot and replays the journals from its number on.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+
+public class CalendarJournal {
+    // "MJNL"
+    private static final int MAGIC = 0x4D4A4E4C;
+    private static final short VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot.";
+    private static final String JOURNAL_PREFIX = "journal.";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    // Record header: payload length and CRC-32 of the payload
+    private static final int RECORD_HEADER = 4 + 4;
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 100_000;
+
+    private Path directory;
+    private int compactionThreshold;
+    // Records skipped while recovering, and who hears about failed background compactions
+    private List<String> recoveryErrors = Collections.emptyList();
+    private volatile Consumer<IOException> compactionFailureHandler = e -> { };
+
+    // Guarded by this: the open journal file, the records waiting for the flusher, and the sequence
+    // numbers of the last record appended and the last record known to be on disk
+    private FileChannel channel;
+    private long generation;
+    private ByteBuffer pending;
+    private long appendedSeq;
+    private long durableSeq;
+    private long recordsSinceCompaction;
+    private boolean compacting;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private boolean closed;
+    private IOException failure;
+
+    private Thread flusher;
+
+    /**
+     * Opens a new, empty journal file in the directory.
+     */
+    private CalendarJournal(Path directory, long generation, int compactionThreshold) throws IOException {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.generation = generation;
+        this.channel = openJournal(generation);
+        this.flusher = new Thread(this::flushLoop, "calendar-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Checks if a directory holds a journal or a snapshot to recover from.
+     * @param directory the journal directory
+     * @return {@code true} if {@link #recover} would find saved changes
+     * @throws IOException if the directory cannot be listed
+     */
+    public static boolean exists(String directory) throws IOException {
+        Path dir = Paths.get(directory);
+        return Files.isDirectory(dir) && !(generations(dir, SNAPSHOT_PREFIX).isEmpty() && generations(dir, JOURNAL_PREFIX).isEmpty());
+    }
+
+    /**
+     * Rebuilds a calendar from a journal directory, creating the directory if needed, and starts
+     * journaling every later change of the calendar to a new journal file.
+     * A record cut short by a crash ends the replay of its file and is reported by {@link #getRecoveryErrors()}.
+     * @param directory the journal directory
+     * @param calendar  an empty calendar to rebuild
+     * @return the journal, attached to the calendar
+     * @throws IOException if an I/O error occurs, or a snapshot cannot be read
+     */
+    public static CalendarJournal recover(String directory, MyCalendar calendar) throws IOException {
+        return recover(directory, calendar, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Rebuilds a calendar from a journal directory and starts journaling its changes.
+     * @param directory           the journal directory
+     * @param calendar            an empty calendar to rebuild
+     * @param compactionThreshold the number of journal records after which a compaction is due
+     * @return the journal, attached to the calendar
+     * @throws IOException if an I/O error occurs, or a snapshot cannot be read
+     */
+    public static CalendarJournal recover(String directory, MyCalendar calendar, int compactionThreshold) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        deleteTempFiles(dir);
+
+        TreeSet<Long> snapshots = generations(dir, SNAPSHOT_PREFIX);
+        TreeSet<Long> journals = generations(dir, JOURNAL_PREFIX);
+        long base = snapshots.isEmpty() ? 0 : snapshots.last();
+        if (!snapshots.isEmpty()) {
+            calendar.loadSnapshot(dir.resolve(SNAPSHOT_PREFIX + base).toString());
+        }
+        long replayed = 0;
+        List<String> errors = new ArrayList<>();
+        for (long generation : journals.tailSet(base, true)) {
+            Path file = dir.resolve(JOURNAL_PREFIX + generation);
+            replayed += replay(file, calendar, errors);
+            // A session that changed nothing leaves a journal holding only its header
+            if (Files.size(file) <= 6) {
+                Files.delete(file);
+            }
+        }
+
+        long next = Math.max(base, journals.isEmpty() ? 0 : journals.last()) + 1;
+        CalendarJournal journal = new CalendarJournal(dir, next, compactionThreshold);
+        journal.recordsSinceCompaction = replayed;
+        journal.recoveryErrors = Collections.unmodifiableList(errors);
+        calendar.attachJournal(journal);
+        return journal;
+    }
+
+    /**
+     * Returns what {@link #recover} skipped: journals that are not journals, and the torn or corrupt
+     * record that ended the replay of a file.
+     * @return the error messages, each naming the file; empty if every record was replayed
+     */
+    public List<String> getRecoveryErrors() {
+        return recoveryErrors;
+    }
+
+    /**
+     * Sets who is told when a compaction fails on its background thread. The journal stays complete
+     * after a failure and the next compaction tries again. By default failures are only recorded in
+     * the future returned by {@link MyCalendar#compactJournal()}.
+     * @param handler receives the error, on the compaction thread
+     */
+    public void setCompactionFailureHandler(Consumer<IOException> handler) {
+        this.compactionFailureHandler = handler;
+    }
+
+    /**
+     * Queues a record of an added event. The record is durable after the next group commit.
+     * Callers check {@link #ensureWritable()} and {@link #ensureStorable} before changing the calendar.
+     * @param event the added {@code Event}
+     */
+    void logAdd(Event event) {
+        append(ADD, event);
+    }
+
+    /**
+     * Queues a record of a removed event. The record is durable after the next group commit.
+     * @param event the removed {@code Event}
+     */
+    void logRemove(Event event) {
+        append(REMOVE, event);
+    }
+
+    /**
+     * Waits until every record queued so far is on disk.
+     * @throws IOException if writing the journal failed
+     */
+    public void sync() throws IOException {
+        synchronized (this) {
+            long target = appendedSeq;
+            while (durableSeq < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Waits for a running compaction, writes out every queued record, stops the flusher and
+     * closes the journal file.
+     * @throws IOException if writing the journal failed
+     */
+    public void close() throws IOException {
+        CompletableFuture<Void> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        // A failed compaction was already reported to the handler and leaves the journal complete
+        running.exceptionally(e -> null).join();
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Checks if enough records were journaled since the last compaction to start another one.
+     * @return {@code true} if a compaction is due and none is running
+     */
+    synchronized boolean isCompactionDue() {
+        return !compacting && recordsSinceCompaction >= compactionThreshold;
+    }
+
+    /**
+     * Switches to a new journal file, so later records go after the cut that the next snapshot
+     * captures. Must be called while no record can be appended.
+     * @return the generation of the new journal file, which is also the generation of the snapshot
+     * @throws IOException if the old journal cannot be synced or the new one cannot be created
+     */
+    long rotate() throws IOException {
+        sync();
+        synchronized (this) {
+            FileChannel next = openJournal(generation + 1);
+            channel.close();
+            channel = next;
+            generation++;
+            recordsSinceCompaction = 0;
+            compacting = true;
+            return generation;
+        }
+    }
+
+    /**
+     * Starts writing the snapshot of a cut on a background thread. When it is safely in place,
+     * the older snapshots and journals are deleted.
+     * @param generation      the generation returned by {@link #rotate()}
+     * @param oneTimeEvents   the one-time events at the cut
+     * @param recurringEvents the recurring events at the cut
+     * @return a future completed when the snapshot is in place, or completed exceptionally if it failed
+     */
+    CompletableFuture<Void> compactInBackground(long generation, List<Event> oneTimeEvents, List<Event> recurringEvents) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread compactor = new Thread(() -> {
+            try {
+                writeSnapshot(generation, oneTimeEvents, recurringEvents);
+                done.complete(null);
+            } catch (IOException e) {
+                done.completeExceptionally(e);
+                reportCompactionFailure(e);
+            } finally {
+                synchronized (this) {
+                    compacting = false;
+                }
+            }
+        }, "calendar-journal-compactor");
+        compactor.setDaemon(true);
+        synchronized (this) {
+            compaction = done;
+        }
+        compactor.start();
+        return done;
+    }
+
+    /**
+     * Throws if records can no longer be journaled, so a change is refused before it is applied.
+     * @throws UncheckedIOException if writing the journal failed
+     * @throws IllegalStateException if the journal is closed
+     */
+    synchronized void ensureWritable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /**
+     * Throws if an event cannot be journaled exactly, so it is refused before it is added.
+     * Records keep times to the second, as snapshots do.
+     * @param events the events about to be added
+     * @throws IllegalArgumentException if an event has a time with a fraction of a second
+     */
+    void ensureStorable(Collection<Event> events) {
+        for (Event event : events) {
+            CalendarSnapshot.checkStorable(event);
+        }
+    }
+
+    /**
+     * Passes a compaction failure to the handler set by {@link #setCompactionFailureHandler}.
+     * @param error the error that stopped the compaction
+     */
+    void reportCompactionFailure(IOException error) {
+        compactionFailureHandler.accept(error);
+    }
+
+    /**
+     * Writes snapshot.N through a temporary file and an atomic rename, then deletes every older file.
+     */
+    private void writeSnapshot(long generation, List<Event> oneTimeEvents, List<Event> recurringEvents) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_PREFIX + generation);
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + generation + TEMP_SUFFIX);
+        CalendarSnapshot.write(temp.toString(), oneTimeEvents, recurringEvents);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        for (long old : generations(directory, SNAPSHOT_PREFIX).headSet(generation)) {
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + old));
+        }
+        for (long old : generations(directory, JOURNAL_PREFIX).headSet(generation)) {
+            Files.deleteIfExists(directory.resolve(JOURNAL_PREFIX + old));
+        }
+    }
+
+    /**
+     * Encodes one record into the pending buffer and wakes the flusher.
+     * Layout (big-endian): payload length, CRC-32, then the payload: operation, recurring flag,
+     * name, start and end epoch day, start and end second of day, day mask.
+     */
+    private void append(byte op, Event event) {
+        byte[] name = event.getName().getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + 1 + 4 + name.length + 4 + 4 + 4 + 4 + 1;
+        synchronized (this) {
+            if (pending.remaining() < RECORD_HEADER + payload) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER + payload));
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+            int start = pending.position();
+            pending.position(start + RECORD_HEADER);
+            pending.put(op)
+                    .put((byte) (event.isRecurring() ? 1 : 0))
+                    .putInt(name.length)
+                    .put(name)
+                    .putInt((int) event.getStartDate().toEpochDay())
+                    .putInt((int) event.getEndDate().toEpochDay())
+                    .putInt(event.getStartTime().toSecondOfDay())
+                    .putInt(event.getEndTime().toSecondOfDay())
+                    .put((byte) (event.isRecurring() ? event.getDayMask() : 0));
+            CRC32 crc = new CRC32();
+            crc.update(pending.array(), start + RECORD_HEADER, payload);
+            pending.putInt(start, payload).putInt(start + 4, (int) crc.getValue());
+
+            appendedSeq++;
+            recordsSinceCompaction++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Body of the flusher thread: takes every pending record at once, writes and fsyncs them,
+     * then marks them durable. Records appended meanwhile wait for the next round.
+     */
+    private void flushLoop() {
+        ByteBuffer spare = ByteBuffer.allocate(pending.capacity());
+        while (true) {
+            ByteBuffer batch;
+            long seq;
+            FileChannel target;
+            synchronized (this) {
+                while (appendedSeq == durableSeq && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (appendedSeq == durableSeq) {
+                    return;
+                }
+                batch = pending;
+                pending = spare.capacity() >= batch.capacity() ? spare : ByteBuffer.allocate(batch.capacity());
+                seq = appendedSeq;
+                target = channel;
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+            spare = batch;
+
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                    notifyAll();
+                    return;
+                }
+                durableSeq = seq;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Applies the records of one journal file to the calendar, adding a message to {@code errors}
+     * for a file or record it skips.
+     * @return the number of records applied
+     */
+    private static long replay(Path file, MyCalendar calendar, List<String> errors) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            errors.add(file + ": not a calendar journal");
+            return 0;
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version + " in " + file);
+        }
+
+        long applied = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            if (buffer.remaining() < RECORD_HEADER) {
+                errors.add("a torn record at the end of " + file);
+                break;
+            }
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length) {
+                errors.add("a torn record at the end of " + file);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), start + RECORD_HEADER, length);
+            if ((int) crc.getValue() != checksum) {
+                errors.add("a corrupt record at byte " + start + " of " + file);
+                break;
+            }
+
+            byte op = buffer.get();
+            boolean recurring = buffer.get() != 0;
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            LocalDate startDate = LocalDate.ofEpochDay(buffer.getInt());
+            LocalDate endDate = LocalDate.ofEpochDay(buffer.getInt());
+            TimeInterval interval = new TimeInterval(readTime(buffer), readTime(buffer));
+            int dayMask = buffer.get();
+            Event event = recurring
+                    ? new Event(new String(name, StandardCharsets.UTF_8), interval, startDate, endDate, dayMask)
+                    : new Event(new String(name, StandardCharsets.UTF_8), interval, startDate);
+
+            if (op == ADD) {
+                calendar.add(event);
+            } else {
+                removeMatching(calendar, event);
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Removes one event of the calendar with the same name, rule and times as the given event.
+     */
+    private static void removeMatching(MyCalendar calendar, Event event) {
+        for (Event candidate : calendar.getEventsByName(event.getName())) {
+            if (candidate.isRecurring() == event.isRecurring()
+                    && candidate.getStartDate().equals(event.getStartDate())
+                    && candidate.getEndDate().equals(event.getEndDate())
+                    && candidate.getDayMask() == event.getDayMask()
+                    && candidate.getStartTime().equals(event.getStartTime())
+                    && candidate.getEndTime().equals(event.getEndTime())) {
+                calendar.removeById(candidate.getId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates journal.N and writes its header.
+     */
+    private FileChannel openJournal(long generation) throws IOException {
+        FileChannel file = FileChannel.open(directory.resolve(JOURNAL_PREFIX + generation),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(6).putInt(MAGIC).putShort(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        file.force(true);
+        return file;
+    }
+
+    /**
+     * Returns the generations of the files in the directory named prefix followed by a number.
+     */
+    private static TreeSet<Long> generations(Path directory, String prefix) throws IOException {
+        TreeSet<Long> generations = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    generations.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Deletes the snapshots left half-written by an interrupted compaction.
+     */
+    private static void deleteTempFiles(Path directory) throws IOException {
+        List<Path> temps = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMP_SUFFIX)) {
+            files.forEach(temps::add);
+        }
+        for (Path temp : temps) {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads a time of a record, stored as a second-of-day int.
+     */
+    private static LocalTime readTime(ByteBuffer buffer) {
+        return LocalTime.ofSecondOfDay(buffer.getInt());
+    }
+}
@@ -0,0 +1,396 @@
+/**
+*Counters and latency histograms for the hot operations of the calendar: loading, day lookups,
+*adds, batch adds, removes, conflict checks and month printing, together with the number of records parsed and
+*rejected while loading and the index sizes of the watched calendars.
+*Latencies go into log-linear buckets, eight per power of two, so percentiles are within about 12%
+*at any scale without storing samples. Recording is lock-free. When metrics are switched off a timed
+*operation costs one volatile read, so they can stay in place in production.
+*Everything is published as a JMX MXBean and as a text dump.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+public class CalendarMetrics implements CalendarMetricsMXBean {
+    /**
+     * The operations that are timed.
+     */
+    public enum Operation {
+        LOAD("load"),
+        GET_EVENTS_FOR_DATE("getEventsForDate"),
+        ADD("add"),
+        ADD_ALL("addAll"),
+        REMOVE("remove"),
+        CONFLICT_CHECK("conflict check"),
+        PRINT_CALENDAR("printCalendar");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return the name the operation is reported under
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // The name the metrics are registered under in the platform MBean server
+    public static final String OBJECT_NAME = "MyCalendar:type=CalendarMetrics";
+    // Returned by start() while switched off, so stop() knows to do nothing
+    private static final long OFF = Long.MIN_VALUE;
+    // Shared by every calendar and printer of the program; off unless -Dcalendar.metrics=true
+    private static final CalendarMetrics INSTANCE = new CalendarMetrics(Boolean.getBoolean("calendar.metrics"));
+
+    private volatile boolean enabled;
+    private Histogram[] histograms;
+    private LongAdder eventsParsed;
+    private LongAdder eventsRejected;
+    // Calendars whose index sizes are reported, by name
+    private ConcurrentMap<String, MyCalendar> calendars;
+
+    /**
+     * Creates metrics with empty counters.
+     * @param enabled whether operations are recorded from the start
+     */
+    public CalendarMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.histograms = new Histogram[Operation.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        this.eventsParsed = new LongAdder();
+        this.eventsRejected = new LongAdder();
+        this.calendars = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Returns the metrics shared by the whole program.
+     * @return the shared metrics
+     */
+    public static CalendarMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Marks the start of a timed operation.
+     * @return the start time to pass to {@link #stop(Operation, long)}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : OFF;
+    }
+
+    /**
+     * Records the end of a timed operation.
+     * @param operation the operation
+     * @param start     the value returned by {@link #start()} when the operation began
+     */
+    public void stop(Operation operation, long start) {
+        if (start != OFF) {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts the records of a load.
+     * @param parsed   the number of events read
+     * @param rejected the number of malformed records skipped
+     */
+    public void recordLoad(int parsed, int rejected) {
+        if (enabled) {
+            eventsParsed.add(parsed);
+            eventsRejected.add(rejected);
+        }
+    }
+
+    /**
+     * Reports the index sizes of a calendar under a name, replacing any calendar watched under it.
+     * Sizes are read only when the metrics are read.
+     * @param name     the name to report the calendar under
+     * @param calendar the calendar
+     */
+    public void watch(String name, MyCalendar calendar) {
+        calendars.put(name, calendar);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under {@link #OBJECT_NAME}.
+     * Failures are reported and otherwise ignored, as metrics are not essential.
+     */
+    public void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not publish calendar metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getEventsParsed() {
+        return eventsParsed.sum();
+    }
+
+    @Override
+    public long getEventsRejected() {
+        return eventsRejected.sum();
+    }
+
+    @Override
+    public Map<String, Summary> getOperations() {
+        Map<String, Summary> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            operations.put(operation.getLabel(), getSummary(operation));
+        }
+        return operations;
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> getIndexSizes() {
+        Map<String, Map<String, Integer>> sizes = new LinkedHashMap<>();
+        for (Map.Entry<String, MyCalendar> entry : calendars.entrySet()) {
+            sizes.put(entry.getKey(), entry.getValue().getIndexSizes());
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the count and latency percentiles of one operation.
+     * @param operation the operation
+     * @return a snapshot of its histogram
+     */
+    public Summary getSummary(Operation operation) {
+        return histograms[operation.ordinal()].summarize();
+    }
+
+    @Override
+    public void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        eventsParsed.reset();
+        eventsRejected.reset();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        dump(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Writes every counter, histogram summary and index size as text, one line each.
+     * @param out the target, such as {@code System.out} or a {@code StringBuilder}
+     */
+    public void dump(Appendable out) {
+        try {
+            out.append(String.format("calendar metrics (%s)%n", enabled ? "enabled" : "disabled"));
+            out.append(String.format("  %-20s %12s %10s %10s %10s %10s %10s%n",
+                    "operation", "count", "mean us", "p50 us", "p90 us", "p99 us", "max us"));
+            for (Operation operation : Operation.values()) {
+                Summary s = getSummary(operation);
+                out.append(String.format("  %-20s %12d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation.getLabel(),
+                        s.getCount(), s.getMeanMicros(), s.getP50Micros(), s.getP90Micros(), s.getP99Micros(), s.getMaxMicros()));
+            }
+            out.append(String.format("  events parsed %d, rejected %d%n", getEventsParsed(), getEventsRejected()));
+            for (Map.Entry<String, Map<String, Integer>> calendar : getIndexSizes().entrySet()) {
+                StringJoiner sizes = new StringJoiner(", ");
+                for (Map.Entry<String, Integer> size : calendar.getValue().entrySet()) {
+                    sizes.add(size.getKey() + " " + size.getValue());
+                }
+                out.append(String.format("  index sizes of %s: %s%n", calendar.getKey(), sizes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Count and latency percentiles of an operation at one point in time. Percentiles are the upper
+     * bound of the histogram bucket they fall in.
+     */
+    public static class Summary {
+        private long count;
+        private double meanMicros;
+        private double p50Micros;
+        private double p90Micros;
+        private double p99Micros;
+        private double maxMicros;
+
+        private Summary(long count, double meanMicros, double p50Micros, double p90Micros, double p99Micros,
+                        double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * @return the number of operations recorded
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the mean latency in microseconds
+         */
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        /**
+         * @return the median latency in microseconds
+         */
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        /**
+         * @return the 90th percentile latency in microseconds
+         */
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        /**
+         * @return the 99th percentile latency in microseconds
+         */
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        /**
+         * @return the largest latency in microseconds
+         */
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    /**
+     * Latency histogram with eight linear sub-buckets per power of two of nanoseconds.
+     */
+    private static class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        // Values below SUB_BUCKETS get a bucket each, then SUB_BUCKETS buckets per power of two
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private LongAdder total = new LongAdder();
+        private AtomicLong max = new AtomicLong();
+
+        private void record(long nanos) {
+            counts.incrementAndGet(bucketOf(nanos));
+            total.add(nanos);
+            long seen = max.get();
+            while (nanos > seen && !max.compareAndSet(seen, nanos)) {
+                seen = max.get();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            total.reset();
+            max.set(0);
+        }
+
+        private Summary summarize() {
+            long[] snapshot = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                n += snapshot[i];
+            }
+            double mean = n == 0 ? 0 : total.sum() / (double) n / 1000;
+            long largest = max.get();
+            return new Summary(n, mean, percentile(snapshot, n, 0.50, largest), percentile(snapshot, n, 0.90, largest),
+                    percentile(snapshot, n, 0.99, largest), largest / 1000.0);
+        }
+
+        /**
+         * Returns the upper bound, in microseconds, of the bucket holding the given fraction of the values,
+         * but no more than the largest value recorded.
+         */
+        private static double percentile(long[] snapshot, long n, double fraction, long largest) {
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(fraction * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), largest) / 1000.0;
+                }
+            }
+            return largest / 1000.0;
+        }
+
+        /**
+         * Returns the bucket of a value: the value itself below SUB_BUCKETS, otherwise its power
+         * of two and the next SUB_BITS bits below the leading one.
+         */
+        private static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) Math.max(0, nanos);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * Returns the largest value that falls in a bucket.
+         */
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            int sub = bucket % SUB_BUCKETS;
+            long lower = (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+            return lower + (1L << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
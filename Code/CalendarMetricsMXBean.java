@@ -0,0 +1,55 @@
+/**
+*Management interface of the calendar metrics, as published over JMX. Operation summaries and
+*index sizes appear as tables in a JMX console.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.util.Map;
+
+
+public interface CalendarMetricsMXBean {
+    /**
+     * @return whether operations are being recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Switches recording on or off. Counts gathered so far are kept.
+     * @param enabled whether to record operations
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the number of events read by every load
+     */
+    long getEventsParsed();
+
+    /**
+     * @return the number of malformed records skipped by every load
+     */
+    long getEventsRejected();
+
+    /**
+     * @return the count and latency percentiles of each operation, by operation name
+     */
+    Map<String, CalendarMetrics.Summary> getOperations();
+
+    /**
+     * @return the size of each index of each watched calendar, by calendar name
+     */
+    Map<String, Map<String, Integer>> getIndexSizes();
+
+    /**
+     * Clears every histogram and counter.
+     */
+    void reset();
+
+    /**
+     * @return every counter, histogram summary and index size as text
+     */
+    String dump();
+}
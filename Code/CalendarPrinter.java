@@ -1,6 +1,8 @@
 /**
 *Responsible for printing a calendar for a given month and year, including
 *highlighting days with events and marking today's date.
+*Month, week and day views are built in a reusable buffer and written to the
+*target in a single append, so a printer should not be shared between threads.
 * CS151 Hw1 Solution
 *Instructor: Dr.Kim
 * @author: Angie Do
@@ -8,11 +10,24 @@
 */
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
 
 public class CalendarPrinter {
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy");
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("E, MMM d yyyy");
+    private static final String NEWLINE = System.lineSeparator();
+    private static final CalendarMetrics METRICS = CalendarMetrics.getInstance();
 
+    // Reused by every render of this printer
+    private StringBuilder buffer = new StringBuilder(1024);
 
     /**
      * Prints the calendar for the specified month and year, highlighting
@@ -22,58 +37,244 @@ public class CalendarPrinter {
      */
 
     public void printCalendar(LocalDate date, MyCalendar myCalendar) {
+        long start = METRICS.start();
+        renderMonth(date, myCalendar, System.out);
+        METRICS.stop(CalendarMetrics.Operation.PRINT_CALENDAR, start);
+    }
+
+    /**
+     * Writes the month view for the specified month and year to the target in one append.
+     * @param date       represent the month and year to render
+     * @param myCalendar used to check for events on specific dates
+     * @param out        the target, such as {@code System.out}, a {@code Writer} or a {@code StringBuilder}
+     */
+    public void renderMonth(LocalDate date, MyCalendar myCalendar, Appendable out) {
+        buffer.setLength(0);
+        LocalDate firstDayOfMonth = date.withDayOfMonth(1);
+        BitSet eventDays = myCalendar.getOccupancy(firstDayOfMonth, firstDayOfMonth.withDayOfMonth(date.lengthOfMonth()));
+        appendMonth(buffer, firstDayOfMonth, eventDays, 0, LocalDate.now());
+        write(out);
+    }
+
+    /**
+     * Writes the twelve months of a year to the target in one append.
+     * @param year       the year to render
+     * @param myCalendar used to check for events on specific dates
+     * @param out        the target of the rendered text
+     */
+    public void renderYear(int year, MyCalendar myCalendar, Appendable out) {
+        renderRange(YearMonth.of(year, 1), YearMonth.of(year, 12), myCalendar, out);
+    }
+
+    /**
+     * Writes every month from {@code from} to {@code to}, separated by a blank line, to the target in one append.
+     * The event days of the whole range are read from the calendar in one pass, then the months are
+     * rendered in parallel from that snapshot and stitched back together in order.
+     * @param from       the first month to render
+     * @param to         the last month to render
+     * @param myCalendar used to check for events on specific dates
+     * @param out        the target of the rendered text
+     */
+    public void renderRange(YearMonth from, YearMonth to, MyCalendar myCalendar, Appendable out) {
+        LocalDate first = from.atDay(1);
+        BitSet eventDays = myCalendar.getOccupancy(first, to.atEndOfMonth());
+        LocalDate today = LocalDate.now();
+
+        int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        StringBuilder[] rendered = IntStream.range(0, months).parallel()
+                .mapToObj(i -> {
+                    LocalDate firstDayOfMonth = first.plusMonths(i);
+                    StringBuilder sb = new StringBuilder(256);
+                    appendMonth(sb, firstDayOfMonth, eventDays, (int) ChronoUnit.DAYS.between(first, firstDayOfMonth), today);
+                    return sb;
+                })
+                .toArray(StringBuilder[]::new);
+
+        buffer.setLength(0);
+        for (int i = 0; i < months; i++) {
+            if (i > 0) {
+                buffer.append(NEWLINE);
+            }
+            buffer.append(rendered[i]);
+        }
+        write(out);
+    }
+
+    /**
+     * Writes the week view, Sunday to Saturday, for the week containing the date to the target in one append.
+     * @param date       any day of the week to render
+     * @param myCalendar the calendar containing events
+     * @param out        the target of the rendered text
+     */
+    public void renderWeek(LocalDate date, MyCalendar myCalendar, Appendable out) {
+        buffer.setLength(0);
+        LocalDate sunday = date.minusDays(date.getDayOfWeek().getValue() % 7);
+        LocalDate saturday = sunday.plusDays(6);
+
+        // One ordered pass over the occurrences of the week, split by day as it goes
+        Iterator<Occurrence> occurrences = myCalendar.occurrences(sunday, saturday).iterator();
+        Occurrence next = occurrences.hasNext() ? occurrences.next() : null;
+        for (LocalDate day = sunday; !day.isAfter(saturday); day = day.plusDays(1)) {
+            DAY_FORMATTER.formatTo(day, buffer);
+            buffer.append(NEWLINE);
+            if (next == null || !next.getDate().equals(day)) {
+                buffer.append("No events for this day.").append(NEWLINE);
+                continue;
+            }
+            buffer.append("Event for this day:").append(NEWLINE);
+            while (next != null && next.getDate().equals(day)) {
+                appendEvent(buffer, next.getEvent());
+                next = occurrences.hasNext() ? occurrences.next() : null;
+            }
+        }
+        write(out);
+    }
+
+    /**
+     * Writes the day view, with the events of the day ordered by start time, to the target in one append.
+     * @param date       the day to render
+     * @param myCalendar the calendar containing events
+     * @param out        the target of the rendered text
+     */
+    public void renderDay(LocalDate date, MyCalendar myCalendar, Appendable out) {
+        buffer.setLength(0);
+        DAY_FORMATTER.formatTo(date, buffer);
+        buffer.append(NEWLINE);
+        appendEvents(buffer, myCalendar.getEventsForDate(date), "No events for today.", "Event for this day:");
+        write(out);
+    }
+
+    /**
+     * Writes the go-to-date view, a heading naming the date followed by its events ordered by
+     * start time, to the target in one append.
+     * @param date       the date to render
+     * @param myCalendar the calendar containing events
+     * @param out        the target of the rendered text
+     */
+    public void renderDate(LocalDate date, MyCalendar myCalendar, Appendable out) {
+        buffer.setLength(0);
+        String day = DAY_FORMATTER.format(date);
+        appendEvents(buffer, myCalendar.getEventsForDate(date), "No events on " + day, "Event on " + day);
+        write(out);
+    }
+
+    /**
+     * Appends the month grid for one month.
+     * @param sb              the buffer to append to
+     * @param firstDayOfMonth the first day of the month
+     * @param eventDays       the days with events, as returned by {@link MyCalendar#getOccupancy}
+     * @param offset          the bit of {@code eventDays} that stands for the first day of the month
+     * @param today           the day to mark as today
+     */
+    static void appendMonth(StringBuilder sb, LocalDate firstDayOfMonth, BitSet eventDays, int offset, LocalDate today) {
         // Display the month and year
-        System.out.println(date.format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+        MONTH_FORMATTER.formatTo(firstDayOfMonth, sb);
+        sb.append(NEWLINE);
 
         // Display as order Sunday Monday Tuesday Wednesday Thursday Friday Saturday
-        System.out.println("Su Mo Tu We Th Fr Sa");
+        sb.append("Su Mo Tu We Th Fr Sa").append(NEWLINE);
+
+        int lengthOfMonth = firstDayOfMonth.lengthOfMonth();
+        int todayOfMonth = today.getYear() == firstDayOfMonth.getYear() && today.getMonth() == firstDayOfMonth.getMonth()
+                ? today.getDayOfMonth() : 0;
 
-        // First day of the month and number of days in the month
-        LocalDate firstDayOfMonth = date.withDayOfMonth(1);
-        int lengthOfMonth = date.lengthOfMonth();
-        
         // Calculate the starting position (Sunday = 0)
         int startDay = firstDayOfMonth.getDayOfWeek().getValue() % 7;
-        System.out.print("   ".repeat(startDay));
+        for (int i = 0; i < startDay; i++) {
+            sb.append("   ");
+        }
 
-        // Print the days of the month
+        // Append the days of the month
         for (int day = 1; day <= lengthOfMonth; day++) {
-            LocalDate currentDay = firstDayOfMonth.withDayOfMonth(day);
-            boolean hasEvent = hasEventOnDate(currentDay, myCalendar);
-            boolean isToday = currentDay.equals(LocalDate.now());
-        
-            switch (isToday ? 1 : (hasEvent ? 2 : 3)) {
-                case 1:
-                    System.out.printf("[%2d] ", day); // Highlight today
-                    break;
-                case 2:
-                    System.out.printf("{%2d} ", day); // Highlight event days
-                    break;
-                case 3:
-                    System.out.printf("%2d ", day); // Regular days
-                    break;
+            if (day == todayOfMonth) {
+                sb.append('[');
+                appendPadded(sb, day);
+                sb.append("] "); // Highlight today
+            } else if (eventDays.get(offset + day - 1)) {
+                sb.append('{');
+                appendPadded(sb, day);
+                sb.append("} "); // Highlight event days
+            } else {
+                appendPadded(sb, day);
+                sb.append(' '); // Regular days
             }
-        
+
             // Move to the next line after Saturday
             if ((startDay + day) % 7 == 0) {
-                System.out.println();
+                sb.append(NEWLINE);
             }
         }
-        
+
         // Ensure the last row ends on a new line
         if ((startDay + lengthOfMonth) % 7 != 0) {
-            System.out.println();
+            sb.append(NEWLINE);
+        }
+    }
+
+    /**
+     * Appends a heading line and the events under it, or only the line for no events.
+     * @param sb      the buffer to append to
+     * @param events  the events, ordered by start time
+     * @param none    the line shown when there are no events
+     * @param heading the line shown above the events
+     */
+    private static void appendEvents(StringBuilder sb, List<Event> events, String none, String heading) {
+        if (events.isEmpty()) {
+            sb.append(none).append(NEWLINE);
+            return;
+        }
+        sb.append(heading).append(NEWLINE);
+        for (Event event : events) {
+            appendEvent(sb, event);
         }
     }
 
-     /**
-     * Checks if there is any events on the specified date.
-     * @param date       the {@code LocalDate} to check for events
-     * @param myCalendar the {@code MyCalendar} object used to check for events on the date
-     * @return {@code true} if there are events on the specified date, {@code false} otherwise
+    /**
+     * Appends one line with the name and time interval of an event.
      */
+    private static void appendEvent(StringBuilder sb, Event event) {
+        sb.append(event.getName()).append(": ");
+        appendTime(sb, event.getStartTime());
+        sb.append(" - ");
+        appendTime(sb, event.getEndTime());
+        sb.append(NEWLINE);
+    }
 
-    private boolean hasEventOnDate(LocalDate date, MyCalendar myCalendar) {
-        return !myCalendar.getEventsForDate(date).isEmpty();
+    /**
+     * Appends a time as HH:mm, with seconds only when they are set, like {@link LocalTime#toString()}.
+     */
+    private static void appendTime(StringBuilder sb, LocalTime time) {
+        appendTwoDigits(sb, time.getHour());
+        sb.append(':');
+        appendTwoDigits(sb, time.getMinute());
+        if (time.getSecond() != 0) {
+            sb.append(':');
+            appendTwoDigits(sb, time.getSecond());
+        }
+    }
+
+    /**
+     * Appends a day of month right-aligned in two characters.
+     */
+    private static void appendPadded(StringBuilder sb, int day) {
+        if (day < 10) {
+            sb.append(' ');
+        }
+        sb.append(day);
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Hands the buffer to the target in a single append.
+     */
+    private void write(Appendable out) {
+        try {
+            out.append(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
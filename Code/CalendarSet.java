@@ -0,0 +1,245 @@
+/**
+*A named set of calendars queried as one, such as the calendars of a team or of every room.
+*A shared date index records, for each day of a window, which calendars have events on it, so a
+*query only visits the calendars that can answer it. The index is built from each calendar's
+*occupancy bitset and rebuilt lazily, per calendar, when that calendar changes.
+*Work on the visited calendars runs in parallel.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+public class CalendarSet {
+    // Calendars and their names, by position in the set; copied on add so queries need no lock
+    private List<String> names;
+    private List<MyCalendar> calendars;
+
+    // First day and length of the window covered by the date index
+    private LocalDate windowStart;
+    private int windowDays;
+    // For each day of the window, the calendars with at least one event on it
+    private BitSet[] calendarsByDay;
+    // Modification count of each calendar when its bits were last indexed, -1 if never
+    private long[] indexedModCounts;
+
+    /**
+     * Creates an empty set whose date index covers the given window. Dates outside the window
+     * are still answered, by visiting every calendar.
+     * @param windowStart the first day of the indexed window
+     * @param windowEnd   the last day of the indexed window
+     */
+    public CalendarSet(LocalDate windowStart, LocalDate windowEnd) {
+        this.names = new CopyOnWriteArrayList<>();
+        this.calendars = new CopyOnWriteArrayList<>();
+        this.windowStart = windowStart;
+        this.windowDays = (int) (windowEnd.toEpochDay() - windowStart.toEpochDay()) + 1;
+        this.calendarsByDay = new BitSet[windowDays];
+        for (int i = 0; i < windowDays; i++) {
+            calendarsByDay[i] = new BitSet();
+        }
+        this.indexedModCounts = new long[0];
+    }
+
+    /**
+     * Adds a calendar to the set.
+     * @param name     the name the calendar is reported under
+     * @param calendar the calendar
+     * @throws IllegalArgumentException if the name is already used
+     */
+    public synchronized void add(String name, MyCalendar calendar) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("A calendar named '" + name + "' is already in the set");
+        }
+        names.add(name);
+        calendars.add(calendar);
+        indexedModCounts = Arrays.copyOf(indexedModCounts, calendars.size());
+        indexedModCounts[calendars.size() - 1] = -1;
+    }
+
+    /**
+     * Returns the number of calendars in the set.
+     * @return the number of calendars
+     */
+    public synchronized int size() {
+        return calendars.size();
+    }
+
+    /**
+     * Returns the events of a date in every calendar that has some.
+     * @param date the date
+     * @return the events of each calendar with events on the date, by calendar name in the order added
+     */
+    public Map<String, List<Event>> getEventsForDate(LocalDate date) {
+        int[] candidates = calendarsOn(date);
+        List<List<Event>> events = IntStream.range(0, candidates.length).parallel()
+                .mapToObj(i -> calendars.get(candidates[i]).getEventsForDate(date))
+                .collect(Collectors.toList());
+
+        Map<String, List<Event>> result = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (!events.get(i).isEmpty()) {
+                result.put(names.get(candidates[i]), events.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the calendars that are busy during a time interval of a date, such as the rooms taken
+     * at a given time. Overlap follows {@link TimeInterval#overlaps(TimeInterval)}.
+     * @param date     the date
+     * @param interval the time interval
+     * @return the names of the busy calendars, in the order added
+     */
+    public List<String> getBusyCalendars(LocalDate date, TimeInterval interval) {
+        int[] candidates = calendarsOn(date);
+        return IntStream.range(0, candidates.length).parallel()
+                .filter(i -> calendars.get(candidates[i]).hasConflict(date, interval))
+                .mapToObj(i -> names.get(candidates[i]))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns a free/busy engine over the combined busy time of every calendar of the set,
+     * for instance to find when a whole team is free.
+     * @return the combined free/busy engine
+     */
+    public FreeBusy getFreeBusy() {
+        return new FreeBusy(this::combinedBusy);
+    }
+
+    /**
+     * Finds the pairs of events from different calendars that overlap on a date.
+     * @param date the date
+     * @return the conflicts, ordered by the start time of their second, later-starting event
+     */
+    public List<Conflict> findCrossConflicts(LocalDate date) {
+        int[] candidates = calendarsOn(date);
+        if (candidates.length < 2) {
+            return new ArrayList<>();
+        }
+
+        // Every event of the day tagged with its calendar, swept in start order
+        List<Tagged> day = IntStream.range(0, candidates.length).parallel()
+                .mapToObj(i -> calendars.get(candidates[i]).getEventsForDate(date).stream()
+                        .map(e -> new Tagged(candidates[i], e)))
+                .flatMap(s -> s)
+                .sorted(Comparator.comparing((Tagged t) -> t.event.getStartTime()))
+                .collect(Collectors.toList());
+
+        List<Conflict> conflicts = new ArrayList<>();
+        OverlapSweep<Tagged> sweep = new OverlapSweep<>(t -> t.event.getTimeInterval());
+        for (Tagged next : day) {
+            sweep.add(next, (open, tagged) -> {
+                if (open.calendar != tagged.calendar) {
+                    conflicts.add(new Conflict(date, names.get(open.calendar), open.event, names.get(tagged.calendar), tagged.event));
+                }
+            });
+        }
+        return conflicts;
+    }
+
+    /**
+     * Finds the cross-calendar conflicts of every day of a date range, checking the days in parallel.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return the conflicts, ordered by date and then as {@link #findCrossConflicts(LocalDate)} orders them
+     */
+    public List<Conflict> findCrossConflicts(LocalDate from, LocalDate to) {
+        refreshIndex();
+        int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        return IntStream.range(0, Math.max(0, days)).parallel()
+                .mapToObj(i -> findCrossConflicts(from.plusDays(i)))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the union of the busy intervals of every calendar with events on a date.
+     */
+    private long[] combinedBusy(LocalDate date) {
+        int[] candidates = calendarsOn(date);
+        return IntStream.range(0, candidates.length).parallel()
+                .mapToObj(i -> calendars.get(candidates[i]).getBusy(date))
+                .reduce(new long[0], FreeBusy::union);
+    }
+
+    /**
+     * Returns the positions of the calendars that may have events on a date: those marked in the date
+     * index for dates inside the window, every calendar otherwise.
+     */
+    private int[] calendarsOn(LocalDate date) {
+        synchronized (this) {
+            long offset = date.toEpochDay() - windowStart.toEpochDay();
+            if (offset < 0 || offset >= windowDays) {
+                return IntStream.range(0, calendars.size()).toArray();
+            }
+            refreshIndex();
+            return calendarsByDay[(int) offset].stream().toArray();
+        }
+    }
+
+    /**
+     * Re-indexes the calendars that changed since they were last indexed. Their occupancy bitsets
+     * are computed in parallel, then folded into the per-day bitsets.
+     */
+    private synchronized void refreshIndex() {
+        int[] stale = IntStream.range(0, calendars.size())
+                .filter(i -> calendars.get(i).getModCount() != indexedModCounts[i])
+                .toArray();
+        if (stale.length == 0) {
+            return;
+        }
+
+        LocalDate windowEnd = windowStart.plusDays(windowDays - 1);
+        long[] modCounts = new long[stale.length];
+        BitSet[] occupancy = new BitSet[stale.length];
+        IntStream.range(0, stale.length).parallel().forEach(i -> {
+            MyCalendar calendar = calendars.get(stale[i]);
+            // Read the count first, so a change made during the scan is picked up next time
+            modCounts[i] = calendar.getModCount();
+            occupancy[i] = calendar.getOccupancy(windowStart, windowEnd);
+        });
+
+        for (int i = 0; i < stale.length; i++) {
+            int calendar = stale[i];
+            if (indexedModCounts[calendar] != -1) {
+                for (BitSet day : calendarsByDay) {
+                    day.clear(calendar);
+                }
+            }
+            for (int day = occupancy[i].nextSetBit(0); day >= 0; day = occupancy[i].nextSetBit(day + 1)) {
+                calendarsByDay[day].set(calendar);
+            }
+            indexedModCounts[calendar] = modCounts[i];
+        }
+    }
+
+    /**
+     * An event together with the position of its calendar in the set.
+     */
+    private static class Tagged {
+        private final int calendar;
+        private final Event event;
+
+        private Tagged(int calendar, Event event) {
+            this.calendar = calendar;
+            this.event = event;
+        }
+    }
+}
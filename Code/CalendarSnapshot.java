@@ -0,0 +1,295 @@
+/**
+*Binary snapshot of a calendar, used for fast save and startup. Dates are stored
+*as epoch-day ints, times as second-of-day ints, recurrence days as a weekday bitmask and
+*event names once each in a name table.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+
+public class CalendarSnapshot {
+    // "MCAL"
+    private static final int MAGIC = 0x4D43414C;
+    private static final short VERSION = 1;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    // Fixed record sizes: name index, dates, start and end second, day mask
+    private static final int ONE_TIME_RECORD = 4 + 4 + 4 + 4;
+    private static final int RECURRING_RECORD = 4 + 4 + 4 + 4 + 4 + 1;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+
+    private CalendarSnapshot(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the events to a snapshot file, replacing any previous content.
+     * Layout (big-endian): magic, version, name table, one-time records, recurring records.
+     * Times are stored to the second, and every event is checked before the file is touched.
+     * @param filename        the snapshot file to write
+     * @param oneTimeEvents   the one-time events, in the order they should be loaded back
+     * @param recurringEvents the recurring events, in the order they should be loaded back
+     * @throws IOException if an I/O error occurs while writing
+     * @throws IllegalArgumentException if an event has a time with a fraction of a second
+     */
+    public static void write(String filename, List<Event> oneTimeEvents, List<Event> recurringEvents) throws IOException {
+        // Give every distinct name an index
+        Map<String, Integer> nameIndex = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (List<Event> events : List.of(oneTimeEvents, recurringEvents)) {
+            for (Event event : events) {
+                checkStorable(event);
+                if (!nameIndex.containsKey(event.getName())) {
+                    nameIndex.put(event.getName(), names.size());
+                    names.add(event.getName());
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CalendarSnapshot out = new CalendarSnapshot(channel);
+            out.reserve(6);
+            out.buffer.putInt(MAGIC).putShort(VERSION);
+
+            out.reserve(4);
+            out.buffer.putInt(names.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.reserve(4);
+                out.buffer.putInt(bytes.length);
+                out.writeBytes(bytes);
+            }
+
+            out.reserve(4);
+            out.buffer.putInt(oneTimeEvents.size());
+            for (Event event : oneTimeEvents) {
+                out.reserve(ONE_TIME_RECORD);
+                out.buffer.putInt(nameIndex.get(event.getName()))
+                        .putInt((int) event.getDate().toEpochDay())
+                        .putInt(event.getStartTime().toSecondOfDay())
+                        .putInt(event.getEndTime().toSecondOfDay());
+            }
+
+            out.reserve(4);
+            out.buffer.putInt(recurringEvents.size());
+            for (Event event : recurringEvents) {
+                out.reserve(RECURRING_RECORD);
+                out.buffer.putInt(nameIndex.get(event.getName()))
+                        .putInt((int) event.getStartDate().toEpochDay())
+                        .putInt((int) event.getEndDate().toEpochDay())
+                        .putInt(event.getStartTime().toSecondOfDay())
+                        .putInt(event.getEndTime().toSecondOfDay())
+                        .put((byte) event.getDayMask());
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads a snapshot file and passes its events to the consumer, one-time events first, in saved order.
+     * Events read from the same snapshot share one {@code String} per distinct name.
+     * @param filename the snapshot file to read
+     * @param sink     the consumer receiving the events
+     * @return the number of events read
+     * @throws IOException if an I/O error occurs, or the file is not a snapshot or is corrupt
+     */
+    public static int read(String filename, Consumer<Event> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            CalendarSnapshot in = new CalendarSnapshot(channel);
+            in.buffer.flip();
+
+            in.require(6);
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IOException(filename + " is not a calendar snapshot");
+            }
+            short version = in.buffer.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + filename);
+            }
+
+            String[] names = new String[in.readCount("name", 4)];
+            for (int i = 0; i < names.length; i++) {
+                byte[] bytes = new byte[in.readCount("name length", 1)];
+                in.readBytes(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int oneTimeCount = in.readCount("one-time event", ONE_TIME_RECORD);
+            for (int i = 0; i < oneTimeCount; i++) {
+                in.require(ONE_TIME_RECORD);
+                String name = in.readName(names);
+                LocalDate date = LocalDate.ofEpochDay(in.buffer.getInt());
+                LocalTime start = in.readTime();
+                LocalTime end = in.readTime();
+                sink.accept(in.check(() -> new Event(name, new TimeInterval(start, end), date)));
+            }
+
+            int recurringCount = in.readCount("recurring event", RECURRING_RECORD);
+            for (int i = 0; i < recurringCount; i++) {
+                in.require(RECURRING_RECORD);
+                String name = in.readName(names);
+                LocalDate startDate = LocalDate.ofEpochDay(in.buffer.getInt());
+                LocalDate endDate = LocalDate.ofEpochDay(in.buffer.getInt());
+                LocalTime start = in.readTime();
+                LocalTime end = in.readTime();
+                int dayMask = in.buffer.get();
+                if ((dayMask & ~0x7F) != 0) {
+                    throw new IOException("Snapshot is corrupt: bad day mask " + dayMask);
+                }
+                sink.accept(in.check(() -> new Event(name, new TimeInterval(start, end), startDate, endDate, dayMask)));
+            }
+            return oneTimeCount + recurringCount;
+        }
+    }
+
+    /**
+     * Makes room for {@code n} more bytes in the write buffer, flushing it if needed.
+     */
+    private void reserve(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes a byte array of any length through the write buffer.
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Writes out everything in the write buffer.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure at least {@code n} unread bytes are in the read buffer, refilling it from the file if needed.
+     */
+    private void require(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reads a byte array of any length through the read buffer.
+     */
+    private void readBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Reads a count or length, which must not be negative and must fit in the rest of the file
+     * when every item takes at least {@code itemSize} bytes, so a corrupt value fails here
+     * instead of sizing an array.
+     */
+    private int readCount(String what, int itemSize) throws IOException {
+        require(4);
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * itemSize > channel.size()) {
+            throw new IOException("Snapshot is corrupt: bad " + what + " count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Reads a name index from the read buffer and returns the name it points to.
+     */
+    private String readName(String[] names) throws IOException {
+        int index = buffer.getInt();
+        if (index < 0 || index >= names.length) {
+            throw new IOException("Snapshot is corrupt: bad name index " + index);
+        }
+        return names[index];
+    }
+
+    /**
+     * Reads a time from the read buffer, stored as a second-of-day int.
+     */
+    private LocalTime readTime() throws IOException {
+        int second = buffer.getInt();
+        if (second < 0 || second >= SECONDS_PER_DAY) {
+            throw new IOException("Snapshot is corrupt: bad time " + second);
+        }
+        return LocalTime.ofSecondOfDay(second);
+    }
+
+    /**
+     * Builds an event from a record, reporting a record the event refuses as a corrupt snapshot.
+     */
+    private Event check(Supplier<Event> record) throws IOException {
+        try {
+            return record.get();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Refuses an event that snapshots, the journal and the compact stores cannot hold exactly.
+     * They keep times to the second, so a time with a fraction of a second would come back
+     * as a different event.
+     * @param event the event to be stored
+     * @throws IllegalArgumentException if a time of the event has a fraction of a second
+     */
+    static void checkStorable(Event event) {
+        if (event.getStartTime().getNano() != 0 || event.getEndTime().getNano() != 0) {
+            throw new IllegalArgumentException("Event '" + event.getName() + "' has a time finer than a second: "
+                    + event.getTimeInterval());
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/**
+*Compact event store for very large calendars. Events are kept as parallel primitive columns
+*(ids, epoch days, second-of-day times, weekday masks and an index into a name dictionary) instead
+*of one object graph per event, and {@code Event} objects are only created when asked for.
+*A store is not safe for concurrent use.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class ColumnarEventStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    // Set in the day mask column for recurring events, above the seven weekday bits
+    private static final int RECURRING = 0x80;
+    private static final int[] NO_ROWS = new int[0];
+
+    // One row per event; a one-time event has no day mask and its end day equals its start day
+    private long[] ids;
+    private int[] startDays;
+    private int[] endDays;
+    private int[] startSeconds;
+    private int[] endSeconds;
+    private byte[] dayMasks;
+    private int[] nameIndexes;
+    private int size;
+
+    // Every distinct name once, with its index
+    private List<String> names;
+    private Map<String, Integer> nameIndex;
+
+    // Built on the first query and kept up to date by later adds; each list is ordered by day, then row.
+    // Rows of one-time events, and rows of recurring events by weekday and span class (see SpanClasses),
+    // a row being listed under each of its weekdays. Only the first oneTimeCount and slotSizes[slot] entries are used.
+    private int[] oneTimeByDay;
+    private int oneTimeCount;
+    private int[][] recurringBySpan;
+    private int[] slotSizes;
+
+    /**
+     * Creates an empty store.
+     */
+    public ColumnarEventStore() {
+        this.ids = new long[INITIAL_CAPACITY];
+        this.startDays = new int[INITIAL_CAPACITY];
+        this.endDays = new int[INITIAL_CAPACITY];
+        this.startSeconds = new int[INITIAL_CAPACITY];
+        this.endSeconds = new int[INITIAL_CAPACITY];
+        this.dayMasks = new byte[INITIAL_CAPACITY];
+        this.nameIndexes = new int[INITIAL_CAPACITY];
+        this.names = new ArrayList<>();
+        this.nameIndex = new HashMap<>();
+    }
+
+    /**
+     * Load events from a file in the events file format.
+     * @param filename the name of the file to load events from
+     * @return the parse errors, as "line N: message", empty if every record was read
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public List<String> loadEvents(String filename) throws IOException {
+        EventFileParser parser = new EventFileParser(this::add);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            parser.parse(channel);
+        }
+        return parser.getErrors();
+    }
+
+    /**
+     * Load events from a snapshot written by {@link CalendarSnapshot#write}.
+     * @param filename the snapshot file
+     * @return the number of events read
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public int loadSnapshot(String filename) throws IOException {
+        return CalendarSnapshot.read(filename, this::add);
+    }
+
+    /**
+     * Adds an event to the store. Only its id and rule are kept, not the object.
+     * Once the store has been queried, the event is also filed into the indexes, which costs a
+     * binary search and an array shift per list; before that, adds only fill the columns.
+     * @param event the {@code Event} to be added
+     * @return the row of the event
+     * @throws IllegalArgumentException if the event has a time with a fraction of a second
+     */
+    public int add(Event event) {
+        CalendarSnapshot.checkStorable(event);
+        if (size == startDays.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = event.getId();
+        startDays[row] = (int) event.getStartDate().toEpochDay();
+        endDays[row] = (int) event.getEndDate().toEpochDay();
+        startSeconds[row] = event.getStartTime().toSecondOfDay();
+        endSeconds[row] = event.getEndTime().toSecondOfDay();
+        dayMasks[row] = event.isRecurring() ? (byte) (RECURRING | event.getDayMask()) : 0;
+        nameIndexes[row] = nameIndex.computeIfAbsent(event.getName(), name -> {
+            names.add(name);
+            return names.size() - 1;
+        });
+        if (oneTimeByDay != null) {
+            index(row);
+        }
+        return row;
+    }
+
+    /**
+     * Returns the number of events in the store.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materializes the event of a row. Each call creates a new {@code Event}, with the id of the event that was added.
+     * @param row the row, from 0 to {@code size() - 1}
+     * @return the event stored in the row
+     */
+    public Event get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+        TimeInterval interval = new TimeInterval(LocalTime.ofSecondOfDay(startSeconds[row]),
+                LocalTime.ofSecondOfDay(endSeconds[row]));
+        String name = names.get(nameIndexes[row]);
+        if (dayMasks[row] == 0) {
+            return new Event(ids[row], name, interval, LocalDate.ofEpochDay(startDays[row]));
+        }
+        return new Event(ids[row], name, interval, LocalDate.ofEpochDay(startDays[row]),
+                LocalDate.ofEpochDay(endDays[row]), dayMasks[row] & 0x7F);
+    }
+
+    /**
+     * Returns the id of the event of a row without materializing it.
+     * @param row the row
+     * @return the event id
+     */
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Returns the name of the event of a row without materializing it.
+     * @param row the row
+     * @return the event name
+     */
+    public String getName(int row) {
+        return names.get(nameIndexes[row]);
+    }
+
+    /**
+     * Checks if the event of a row is recurring without materializing it.
+     * @param row the row
+     * @return {@code true} if the event is recurring
+     */
+    public boolean isRecurring(int row) {
+        return dayMasks[row] != 0;
+    }
+
+    /**
+     * Returns the rows of the events occurring on a date: the one-time events first, then the
+     * recurring events, each in the order they were added. Recurring rows are found through the
+     * span class index, so the cost follows the number of events near the date.
+     * @param date the date
+     * @return the rows, possibly empty
+     */
+    public int[] rowsOn(LocalDate date) {
+        buildIndexes();
+        int day = (int) date.toEpochDay();
+        int first = firstStartingOn(oneTimeByDay, oneTimeCount, day);
+        int last = first;
+        while (last < oneTimeCount && startDays[oneTimeByDay[last]] == day) {
+            last++;
+        }
+
+        int[] rows = Arrays.copyOfRange(oneTimeByDay, first, last);
+        int count = rows.length;
+        int weekday = date.getDayOfWeek().getValue() - 1;
+        for (int k = 0; k < SpanClasses.COUNT; k++) {
+            int[] slot = recurringBySpan[weekday * SpanClasses.COUNT + k];
+            int slotSize = slotSizes[weekday * SpanClasses.COUNT + k];
+            if (slotSize == 0) {
+                continue;
+            }
+            long earliest = SpanClasses.earliestStart(day, k);
+            for (int i = firstStartingOn(slot, slotSize, earliest); i < slotSize && startDays[slot[i]] <= day; i++) {
+                if (endDays[slot[i]] >= day) {
+                    if (count == rows.length) {
+                        rows = Arrays.copyOf(rows, Math.max(8, count * 2));
+                    }
+                    rows[count++] = slot[i];
+                }
+            }
+        }
+        // Rows come out by span class; rows grow in the order events were added
+        Arrays.sort(rows, last - first, count);
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Materializes the events occurring on a date, in the order of {@link #rowsOn(LocalDate)}.
+     * @param date the date
+     * @return a new list of the events
+     */
+    public List<Event> getEventsForDate(LocalDate date) {
+        int[] rows = rowsOn(date);
+        List<Event> events = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            events.add(get(row));
+        }
+        return events;
+    }
+
+    /**
+     * Copies every event of the store into a calendar.
+     * @param calendar the calendar to fill
+     */
+    public void copyTo(MyCalendar calendar) {
+        for (int row = 0; row < size; row++) {
+            calendar.add(get(row));
+        }
+    }
+
+    /**
+     * Estimates the heap used by the store: its columns and indexes, and the name dictionary.
+     * @return the approximate size in bytes
+     */
+    public long estimateHeapBytes() {
+        long bytes = (long) startDays.length * (8 + 4 + 4 + 4 + 4 + 1 + 4);
+        if (oneTimeByDay != null) {
+            bytes += 4L * oneTimeByDay.length;
+            for (int[] slot : recurringBySpan) {
+                bytes += 16 + 4L * slot.length;
+            }
+        }
+        for (String name : names) {
+            // String, its byte array and the dictionary entry
+            bytes += 24 + 16 + name.length() + 32 + 4;
+        }
+        return bytes;
+    }
+
+    /**
+     * Sorts the one-time rows by day, keeping rows of the same day in the order they were added,
+     * and files the recurring rows by weekday and span class, ordered by start day.
+     * Does nothing once built, since later adds keep the indexes up to date.
+     */
+    private void buildIndexes() {
+        if (oneTimeByDay != null) {
+            return;
+        }
+        int oneTimeCount = 0;
+        int[] slotSizes = new int[7 * SpanClasses.COUNT];
+        for (int row = 0; row < size; row++) {
+            if (dayMasks[row] == 0) {
+                oneTimeCount++;
+            } else {
+                for (int weekday = 0; weekday < 7; weekday++) {
+                    if ((dayMasks[row] & (1 << weekday)) != 0) {
+                        slotSizes[spanSlot(weekday, row)]++;
+                    }
+                }
+            }
+        }
+
+        // Rows packed with their day into one long each, so a primitive sort keeps them stable
+        long[] keys = new long[oneTimeCount];
+        long[][] slotKeys = new long[7 * SpanClasses.COUNT][];
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            slotKeys[slot] = new long[slotSizes[slot]];
+            slotSizes[slot] = 0;
+        }
+        int k = 0;
+        for (int row = 0; row < size; row++) {
+            long key = ((long) startDays[row] << 32) | row;
+            if (dayMasks[row] == 0) {
+                keys[k++] = key;
+            } else {
+                for (int weekday = 0; weekday < 7; weekday++) {
+                    if ((dayMasks[row] & (1 << weekday)) != 0) {
+                        int slot = spanSlot(weekday, row);
+                        slotKeys[slot][slotSizes[slot]++] = key;
+                    }
+                }
+            }
+        }
+
+        int[][] bySpan = new int[7 * SpanClasses.COUNT][];
+        for (int slot = 0; slot < bySpan.length; slot++) {
+            bySpan[slot] = slotKeys[slot].length == 0 ? NO_ROWS : rowsOf(slotKeys[slot]);
+        }
+        this.recurringBySpan = bySpan;
+        this.slotSizes = slotSizes;
+        this.oneTimeCount = oneTimeCount;
+        this.oneTimeByDay = rowsOf(keys);
+    }
+
+    /**
+     * Files a newly added row into the built indexes.
+     */
+    private void index(int row) {
+        if (dayMasks[row] == 0) {
+            oneTimeByDay = insert(oneTimeByDay, oneTimeCount++, row);
+            return;
+        }
+        for (int weekday = 0; weekday < 7; weekday++) {
+            if ((dayMasks[row] & (1 << weekday)) != 0) {
+                int slot = spanSlot(weekday, row);
+                recurringBySpan[slot] = insert(recurringBySpan[slot], slotSizes[slot]++, row);
+            }
+        }
+    }
+
+    /**
+     * Inserts a row into the first {@code count} entries of a list ordered by day, after every row
+     * starting on or before its day. Rows only grow, so the list stays ordered by day, then row.
+     * @return the list, grown if it was full
+     */
+    private int[] insert(int[] rows, int count, int row) {
+        int at = firstStartingOn(rows, count, (long) startDays[row] + 1);
+        if (count == rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(8, count * 2));
+        }
+        System.arraycopy(rows, at, rows, at + 1, count - at);
+        rows[at] = row;
+        return rows;
+    }
+
+    /**
+     * Sorts packed (day, row) keys and returns their rows in that order.
+     */
+    private static int[] rowsOf(long[] keys) {
+        Arrays.sort(keys);
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the slot of the recurring index holding a row for one of its weekdays.
+     */
+    private int spanSlot(int weekday, int row) {
+        return SpanClasses.slot(weekday, startDays[row], endDays[row]);
+    }
+
+    /**
+     * Returns the position among the first {@code count} rows of an index list of the first row
+     * starting on or after a day.
+     */
+    private int firstStartingOn(int[] rows, int count, long day) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startDays[rows[mid]] < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void grow() {
+        int capacity = startDays.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+        startSeconds = Arrays.copyOf(startSeconds, capacity);
+        endSeconds = Arrays.copyOf(endSeconds, capacity);
+        dayMasks = Arrays.copyOf(dayMasks, capacity);
+        nameIndexes = Arrays.copyOf(nameIndexes, capacity);
+    }
+}
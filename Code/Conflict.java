@@ -0,0 +1,93 @@
+/**
+*Two events that overlap on a date, as reported by ConflictAudit within one calendar and by
+*CalendarSet across calendars. Conflicts across calendars also name the calendar of each event.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.LocalDate;
+
+
+public class Conflict {
+    private final LocalDate date;
+    private final String firstCalendar;
+    private final Event first;
+    private final String secondCalendar;
+    private final Event second;
+
+    /**
+     * Constructs a conflict between two events of the same calendar.
+     * @param date   the date both events take place on
+     * @param first  the event that starts first
+     * @param second the other event
+     */
+    public Conflict(LocalDate date, Event first, Event second) {
+        this(date, null, first, null, second);
+    }
+
+    /**
+     * Constructs a conflict between events of two calendars.
+     * @param date           the date both events take place on
+     * @param firstCalendar  the name of the calendar of the first event
+     * @param first          the event that starts first
+     * @param secondCalendar the name of the calendar of the second event
+     * @param second         the other event
+     */
+    public Conflict(LocalDate date, String firstCalendar, Event first, String secondCalendar, Event second) {
+        this.date = date;
+        this.firstCalendar = firstCalendar;
+        this.first = first;
+        this.secondCalendar = secondCalendar;
+        this.second = second;
+    }
+
+    /**
+     * @return the date both events take place on
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return the name of the calendar of the first event, or {@code null} within one calendar
+     */
+    public String getFirstCalendar() {
+        return firstCalendar;
+    }
+
+    /**
+     * @return the event that starts first
+     */
+    public Event getFirst() {
+        return first;
+    }
+
+    /**
+     * @return the name of the calendar of the second event, or {@code null} within one calendar
+     */
+    public String getSecondCalendar() {
+        return secondCalendar;
+    }
+
+    /**
+     * @return the other event
+     */
+    public Event getSecond() {
+        return second;
+    }
+
+    /**
+     * Returns the date and both events, with their calendars if they are named.
+     * @return a string representation of the conflict
+     */
+    @Override
+    public String toString() {
+        if (firstCalendar == null) {
+            return date + " " + first + " overlaps " + second;
+        }
+        return date + " " + firstCalendar + " " + first + " overlaps " + secondCalendar + " " + second;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+*Audit that finds every pair of overlapping events in a calendar, recurring events included.
+*The date range is cut into chunks of days that run as fork/join tasks; each task walks the
+*ordered occurrences of its days and sweeps each day's intervals in start order, so the work
+*grows with the number of occurrences and overlaps rather than with the square of the events.
+*Chunks are reported in date order as they finish, with only a few in flight at a time,
+*so the report streams out while the rest of the calendar is still being checked.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+
+public class ConflictAudit {
+    // Days handed to the pool as one task, and days a task sweeps itself instead of splitting
+    private static final int CHUNK_DAYS = 256;
+    private static final int LEAF_DAYS = 16;
+
+    private MyCalendar calendar;
+    private ForkJoinPool pool;
+
+    /**
+     * Creates an audit of a calendar that runs on the common fork/join pool.
+     * @param calendar the calendar to audit
+     */
+    public ConflictAudit(MyCalendar calendar) {
+        this(calendar, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an audit of a calendar that runs on the given pool.
+     * @param calendar the calendar to audit
+     * @param pool     the pool the days are checked on
+     */
+    public ConflictAudit(MyCalendar calendar, ForkJoinPool pool) {
+        this.calendar = calendar;
+        this.pool = pool;
+    }
+
+    /**
+     * Audits every day from the first event of the calendar to the last.
+     * @param sink receives the conflicts, ordered by date and then by the start time of their second, later-starting event
+     * @return the number of conflicts found
+     */
+    public long auditAll(Consumer<Conflict> sink) {
+        List<Event> oneTime = calendar.getAllOneTimeEvents();
+        LocalDate first = oneTime.isEmpty() ? LocalDate.MAX : oneTime.get(0).getDate();
+        LocalDate last = oneTime.isEmpty() ? LocalDate.MIN : oneTime.get(oneTime.size() - 1).getDate();
+        for (Event event : calendar.getAllRecurringEvents()) {
+            first = event.getStartDate().isBefore(first) ? event.getStartDate() : first;
+            last = event.getEndDate().isAfter(last) ? event.getEndDate() : last;
+        }
+        return first.isAfter(last) ? 0 : audit(first, last, sink);
+    }
+
+    /**
+     * Audits every day of a date range.
+     * The sink is called from the calling thread only.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @param sink receives the conflicts, ordered by date and then by the start time of their second, later-starting event
+     * @return the number of conflicts found
+     */
+    public long audit(LocalDate from, LocalDate to, Consumer<Conflict> sink) {
+        // Enough chunks in flight to keep every worker busy, few enough to bound what is held back
+        int window = 2 * pool.getParallelism();
+        Deque<ForkJoinTask<List<Conflict>>> inFlight = new ArrayDeque<>();
+        long found = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(CHUNK_DAYS)) {
+            LocalDate end = start.plusDays(CHUNK_DAYS - 1).isAfter(to) ? to : start.plusDays(CHUNK_DAYS - 1);
+            inFlight.add(pool.submit(new AuditTask(start, end)));
+            if (inFlight.size() >= window) {
+                found += report(inFlight.poll().join(), sink);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            found += report(inFlight.poll().join(), sink);
+        }
+        return found;
+    }
+
+    /**
+     * Passes the conflicts of one chunk to the sink.
+     */
+    private static long report(List<Conflict> conflicts, Consumer<Conflict> sink) {
+        for (Conflict conflict : conflicts) {
+            sink.accept(conflict);
+        }
+        return conflicts.size();
+    }
+
+    /**
+     * Finds the conflicts of every day of a range, splitting the range in halves until it is short.
+     */
+    private class AuditTask extends RecursiveTask<List<Conflict>> {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDate from;
+        private final LocalDate to;
+
+        private AuditTask(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Conflict> compute() {
+            long days = to.toEpochDay() - from.toEpochDay() + 1;
+            if (days <= LEAF_DAYS) {
+                return sweep(from, to);
+            }
+            LocalDate middle = from.plusDays(days / 2);
+            AuditTask left = new AuditTask(from, middle.minusDays(1));
+            left.fork();
+            List<Conflict> right = new AuditTask(middle, to).compute();
+            List<Conflict> conflicts = left.join();
+            conflicts.addAll(right);
+            return conflicts;
+        }
+    }
+
+    /**
+     * Sweeps each day of a range. Occurrences arrive by date and then start time, as the sweep needs them.
+     */
+    private List<Conflict> sweep(LocalDate from, LocalDate to) {
+        List<Conflict> conflicts = new ArrayList<>();
+        OverlapSweep<Event> sweep = new OverlapSweep<>(Event::getTimeInterval);
+        LocalDate day = null;
+        Iterator<Occurrence> occurrences = calendar.occurrences(from, to).iterator();
+        while (occurrences.hasNext()) {
+            Occurrence next = occurrences.next();
+            if (!next.getDate().equals(day)) {
+                day = next.getDate();
+                sweep.clear();
+            }
+            LocalDate date = day;
+            sweep.add(next.getEvent(), (open, event) -> conflicts.add(new Conflict(date, open, event)));
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,23 @@
+/**
+*What a batch add does with events that overlap the calendar or an earlier event of the same batch.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+public enum ConflictPolicy {
+    /**
+     * Skip each conflicting event and add the others.
+     */
+    REJECT,
+    /**
+     * Add nothing if any event conflicts.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Add every event; conflicts are only reported.
+     */
+    ALLOW
+}
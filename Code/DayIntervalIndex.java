@@ -0,0 +1,208 @@
+/**
+*Interval index over the events of a single day. Events are kept sorted by start time with a
+*max-end tree on top, so conflict checks cost O(log n) and listing the events overlapping a
+*time range costs O(log n) per event found.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+public class DayIntervalIndex {
+    // Events sorted by start time, with their start and end as nanosecond of day
+    private Event[] events;
+    private List<Event> eventList;
+    private long[] starts;
+    private long[] ends;
+    // Implicit binary tree over the sorted events; each node holds the latest end below it
+    private long[] maxEnd;
+    private int leaves;
+    // Merged busy intervals as start, end pairs in nanoseconds of day, built on first use
+    private volatile long[] busy;
+
+    /**
+     * Builds the index for the events of one day.
+     * @param dayEvents the events occurring on the day, in any order
+     */
+    public DayIntervalIndex(List<Event> dayEvents) {
+        this.events = dayEvents.toArray(new Event[0]);
+        // Buckets arrive mostly in order already, which the sort handles in close to linear time
+        Arrays.sort(events, Event.TIME_ORDER);
+        this.eventList = Collections.unmodifiableList(Arrays.asList(events));
+
+        int n = events.length;
+        this.starts = new long[n];
+        this.ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = events[i].getStartTime().toNanoOfDay();
+            ends[i] = events[i].getEndTime().toNanoOfDay();
+        }
+
+        this.leaves = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+        this.maxEnd = new long[2 * leaves];
+        Arrays.fill(maxEnd, Long.MIN_VALUE);
+        for (int i = 0; i < n; i++) {
+            maxEnd[leaves + i] = ends[i];
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            maxEnd[node] = Math.max(maxEnd[2 * node], maxEnd[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Checks if any event of the day overlaps the given time interval.
+     * @param interval the time interval to check
+     * @return {@code true} if at least one event overlaps it, {@code false} otherwise
+     */
+    public boolean hasConflict(TimeInterval interval) {
+        long start = interval.getStart().toNanoOfDay();
+        int count = startingBefore(interval.getEnd().toNanoOfDay());
+        return count > 0 && maxEndOfFirst(count) > start;
+    }
+
+    /**
+     * Lists the events of the day that overlap the given time interval, ordered by start time.
+     * Overlap follows {@link TimeInterval#overlaps(TimeInterval)}.
+     * @param interval the time interval to check
+     * @return the overlapping events
+     */
+    public List<Event> findConflicts(TimeInterval interval) {
+        List<Event> conflicts = new ArrayList<>();
+        int count = startingBefore(interval.getEnd().toNanoOfDay());
+        if (count > 0) {
+            collect(1, 0, leaves, count, interval.getStart().toNanoOfDay(), conflicts);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Returns the first event of the day, in start order, that overlaps the given time interval.
+     * Overlap follows {@link TimeInterval#overlaps(TimeInterval)}.
+     * @param interval the time interval to check
+     * @return the overlapping event, or {@code null} if there is none
+     */
+    public Event findFirstConflict(TimeInterval interval) {
+        int count = startingBefore(interval.getEnd().toNanoOfDay());
+        int first = count > 0 ? first(1, 0, leaves, count, interval.getStart().toNanoOfDay()) : -1;
+        return first < 0 ? null : events[first];
+    }
+
+    /**
+     * Returns the busy time of the day: the union of the events' intervals as sorted, disjoint
+     * [start, end) pairs in nanoseconds of day, laid out as start0, end0, start1, end1, ...
+     * An event that ends when it starts is kept as an empty pair, since it still conflicts with any interval around it.
+     * The array is built once and shared, so it must not be changed.
+     * @return the merged busy intervals
+     */
+    public long[] getBusy() {
+        long[] merged = busy;
+        if (merged == null) {
+            long[] pairs = new long[2 * starts.length];
+            int n = 0;
+            for (int i = 0; i < starts.length; i++) {
+                if (n > 0 && starts[i] <= pairs[n - 1]) {
+                    pairs[n - 1] = Math.max(pairs[n - 1], ends[i]);
+                } else {
+                    pairs[n++] = starts[i];
+                    pairs[n++] = ends[i];
+                }
+            }
+            merged = Arrays.copyOf(pairs, n);
+            busy = merged;
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the events of the day in {@link Event#TIME_ORDER}.
+     * @return an unmodifiable view of the sorted events, shared by every caller
+     */
+    public List<Event> getEvents() {
+        return eventList;
+    }
+
+    /**
+     * Returns the number of events in the index.
+     * @return the number of events of the day
+     */
+    public int size() {
+        return events.length;
+    }
+
+    /**
+     * Counts the events that start strictly before the given nanosecond of day.
+     */
+    private int startingBefore(long nano) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < nano) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the latest end among the first {@code count} events.
+     */
+    private long maxEndOfFirst(int count) {
+        long result = Long.MIN_VALUE;
+        int lo = leaves;
+        int hi = leaves + count;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                result = Math.max(result, maxEnd[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                result = Math.max(result, maxEnd[--hi]);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the first event below {@code node} among the first {@code count}
+     * that ends after {@code start}, or -1 if there is none.
+     */
+    private int first(int node, int from, int to, int count, long start) {
+        if (from >= count || maxEnd[node] <= start) {
+            return -1;
+        }
+        if (node >= leaves) {
+            return from;
+        }
+        int mid = (from + to) >>> 1;
+        int left = first(2 * node, from, mid, count, start);
+        return left >= 0 ? left : first(2 * node + 1, mid, to, count, start);
+    }
+
+    /**
+     * Adds to {@code out}, in order, the events below {@code node} among the first {@code count}
+     * that end after {@code start}. Subtrees whose latest end is not after {@code start} are skipped.
+     */
+    private void collect(int node, int from, int to, int count, long start, List<Event> out) {
+        if (from >= count || maxEnd[node] <= start) {
+            return;
+        }
+        if (node >= leaves) {
+            out.add(events[from]);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        collect(2 * node, from, mid, count, start, out);
+        collect(2 * node + 1, mid, to, count, start, out);
+    }
+}
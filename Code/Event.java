@@ -9,31 +9,112 @@
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class Event {
+    // Day letters in the order used by the events file: Sunday, Monday, ..., Saturday
+    private static final String DAY_LETTERS = "SMTWRFA";
+    /**
+     * Orders the events of one day by start time, then end time, then the order they were created.
+     * Day lists, day views and occurrence streams all use this order.
+     */
+    public static final Comparator<Event> TIME_ORDER = Comparator.comparing(Event::getStartTime)
+            .thenComparing(Event::getEndTime).thenComparingLong(Event::getId);
+    // Source of event ids, unique for the life of the program
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
     // Declare variables
+    private long id;
     private String name;
     private TimeInterval timeInterval;
-    private LocalDate date;  // Used for one-time events
+    private LocalDate date;  // Used for one-time events, first day of the range for recurring events
     private boolean recurring;
-    private List<LocalDate> recurrenceDates;  // Used for recurring events
+    private LocalDate endDate;  // Used for recurring events
+    private int dayMask;  // Used for recurring events, bit 0 is Monday ... bit 6 is Sunday
+
+    /**
+     * Constructs a new one-time event.
+     * @param name          the name of the event
+     * @param timeInterval  the start and end times of the event
+     * @param date          the date of the event
+     * @throws IllegalArgumentException if the event ends before it starts
+     */
+    public Event(String name, TimeInterval timeInterval, LocalDate date) {
+        this(NEXT_ID.getAndIncrement(), name, timeInterval, date);
+    }
 
     /**
-     * Constructs a new event with the specified details.
-     * @param name              the name of the event
-     * @param timeInterval      the start and end times of the event
-     * @param date              the date of the event (used for one-time events)
-     * @param recurring         {@code true} if the event is recurring, {@code false} otherwise
-     * @param recurrenceDates   a {@code List} of {@code LocalDate} representing the dates of occurrence for recurring events
+     * Rebuilds a one-time event with the id it was created with, for stores that keep events as raw fields.
+     * @param id            the id of the event
+     * @param name          the name of the event
+     * @param timeInterval  the start and end times of the event
+     * @param date          the date of the event
+     * @throws IllegalArgumentException if the event ends before it starts
      */
-    public Event(String name, TimeInterval timeInterval, LocalDate date, boolean recurring, List<LocalDate> recurrenceDates) {
+    Event(long id, String name, TimeInterval timeInterval, LocalDate date) {
+        checkInterval(name, timeInterval);
+        this.id = id;
         this.name = name;
         this.timeInterval = timeInterval;
         this.date = date;
-        this.recurring = recurring;
-        this.recurrenceDates = recurrenceDates;
+        this.recurring = false;
+    }
+
+    /**
+     * Constructs a new recurring event from its recurrence rule.
+     * Occurrences are computed on demand, so the event takes the same space whatever the length of its range.
+     * @param name          the name of the event
+     * @param timeInterval  the start and end times of each occurrence
+     * @param startDate     the first day of the recurrence period
+     * @param endDate       the last day of the recurrence period
+     * @param dayMask       the days of the week the event recurs on, as built by {@link #parseDays(String)}
+     * @throws IllegalArgumentException if the event ends before it starts
+     */
+    public Event(String name, TimeInterval timeInterval, LocalDate startDate, LocalDate endDate, int dayMask) {
+        this(NEXT_ID.getAndIncrement(), name, timeInterval, startDate, endDate, dayMask);
+    }
+
+    /**
+     * Rebuilds a recurring event with the id it was created with, for stores that keep events as raw fields.
+     * @param id            the id of the event
+     * @param name          the name of the event
+     * @param timeInterval  the start and end times of each occurrence
+     * @param startDate     the first day of the recurrence period
+     * @param endDate       the last day of the recurrence period
+     * @param dayMask       the days of the week the event recurs on
+     * @throws IllegalArgumentException if the event ends before it starts
+     */
+    Event(long id, String name, TimeInterval timeInterval, LocalDate startDate, LocalDate endDate, int dayMask) {
+        checkInterval(name, timeInterval);
+        this.id = id;
+        this.name = name;
+        this.timeInterval = timeInterval;
+        this.date = startDate;
+        this.recurring = true;
+        this.endDate = endDate;
+        this.dayMask = dayMask;
+    }
+
+    /**
+     * Rejects an interval that ends before it starts. Conflict checks, busy times and the
+     * batch sweep all assume an event never ends before it starts, so such an event is never built.
+     */
+    private static void checkInterval(String name, TimeInterval timeInterval) {
+        if (timeInterval.getEnd().isBefore(timeInterval.getStart())) {
+            throw new IllegalArgumentException("Event '" + name + "' ends before it starts: " + timeInterval);
+        }
+    }
+
+    /**
+     * Returns the id of the event, assigned when it is created and never reused.
+     * @return the id of the event
+     */
+    public long getId() {
+        return id;
     }
 
     /**
@@ -60,6 +141,38 @@ public class Event {
         return date;
     }
 
+    /**
+     * Get the first day of the recurrence period.
+     * @return the start date of a recurring event, or the date of a one-time event
+     */
+    public LocalDate getStartDate() {
+        return date;
+    }
+
+    /**
+     * Get the last day of the recurrence period.
+     * @return the end date of a recurring event, or the date of a one-time event
+     */
+    public LocalDate getEndDate() {
+        return recurring ? endDate : date;
+    }
+
+    /**
+     * Get the days of the week a recurring event occurs on.
+     * @return the weekday bitmask, bit 0 is Monday and bit 6 is Sunday
+     */
+    public int getDayMask() {
+        return dayMask;
+    }
+
+    /**
+     * Get the days of the week a recurring event occurs on, as written in the events file.
+     * @return the day letters (S, M, T, W, R, F, A)
+     */
+    public String getDays() {
+        return formatDays(dayMask);
+    }
+
     /**
      * Set the name of the event.
      * @return the {@code String} name of the event
@@ -77,11 +190,163 @@ public class Event {
     }
 
     /**
-     * Returns the list of recurrence dates for a recurring event.
-     * @return a list for representing the recurrence dates
+     * Checks if the event takes place on the given date.
+     * @param day the date to check
+     * @return {@code true} if the event occurs on that date, {@code false} otherwise
+     */
+    public boolean occursOn(LocalDate day) {
+        if (!recurring) {
+            return date.equals(day);
+        }
+        return !day.isBefore(date) && !day.isAfter(endDate) && (dayMask & dayBit(day)) != 0;
+    }
+
+    /**
+     * Returns the first date the event occurs on.
+     * @return the first occurrence, or {@code null} if the recurrence rule never matches
+     */
+    public LocalDate getFirstOccurrence() {
+        Iterator<LocalDate> it = occurrences(date, getEndDate());
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Returns the last date the event occurs on.
+     * @return the last occurrence, or {@code null} if the recurrence rule never matches
      */
-    public List<LocalDate> getRecurrenceDates() {
-        return recurrenceDates;
+    public LocalDate getLastOccurrence() {
+        if (!recurring) {
+            return date;
+        }
+        LocalDate last = endDate.minusDays(daysSince(dayMask, endDate));
+        return dayMask == 0 || last.isBefore(date) ? null : last;
+    }
+
+    /**
+     * Iterates over the dates the event occurs on within a date range, in order.
+     * Dates are computed as the iterator advances, stepping straight from one matching weekday
+     * to the next; nothing is stored.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return an iterator over the occurrence dates between {@code from} and {@code to}, inclusive
+     */
+    public Iterator<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        LocalDate first = from.isAfter(date) ? from : date;
+        LocalDate last = to.isBefore(getEndDate()) ? to : getEndDate();
+        // A one-time event occurs on every day of its one-day range
+        int mask = recurring ? dayMask : 0x7F;
+
+        return new Iterator<LocalDate>() {
+            private LocalDate next = advance(first);
+
+            private LocalDate advance(LocalDate day) {
+                if (mask == 0) {
+                    return null;
+                }
+                day = day.plusDays(daysUntil(mask, day));
+                return day.isAfter(last) ? null : day;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDate next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LocalDate current = next;
+                next = advance(current.plusDays(1));
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of days from a date to the first day, on or after it, whose weekday is in a mask.
+     * @param mask a weekday bitmask with at least one day set
+     * @param day  the date to start from
+     * @return the number of days to the next matching weekday, from 0 to 6
+     */
+    public static int daysUntil(int mask, LocalDate day) {
+        int bit = day.getDayOfWeek().getValue() - 1;
+        // Rotate the mask so the weekday of day is bit 0
+        int rotated = ((mask >>> bit) | (mask << (7 - bit))) & 0x7F;
+        return Integer.numberOfTrailingZeros(rotated);
+    }
+
+    /**
+     * Returns the number of days from a date back to the last day, on or before it, whose weekday is in a mask.
+     * @param mask a weekday bitmask with at least one day set
+     * @param day  the date to start from
+     * @return the number of days back to the previous matching weekday, from 0 to 6
+     */
+    public static int daysSince(int mask, LocalDate day) {
+        int bit = day.getDayOfWeek().getValue() - 1;
+        // Rotate the mask so the weekday of day is bit 6
+        int rotated = ((mask << (6 - bit)) | (mask >>> (bit + 1))) & 0x7F;
+        return Integer.numberOfLeadingZeros(rotated) - 25;
+    }
+
+    /**
+     * Returns the bit of the weekday bitmask for the given date.
+     * @param day the date
+     * @return the mask bit for the day of the week of {@code day}
+     */
+    public static int dayBit(LocalDate day) {
+        return 1 << (day.getDayOfWeek().getValue() - 1);
+    }
+
+    /**
+     * Parses day letters from the events file into a weekday bitmask.
+     * @param days the days of the week (S, M, T, W, R, F, A)
+     * @return the weekday bitmask, bit 0 is Monday and bit 6 is Sunday
+     * @throws IllegalArgumentException if a letter is not a day letter
+     */
+    public static int parseDays(String days) {
+        int mask = 0;
+        for (int i = 0; i < days.length(); i++) {
+            mask |= dayBit(days.charAt(i));
+        }
+        return mask;
+    }
+
+    /**
+     * Maps a day letter of the events file to its weekday mask bit.
+     * Thursday is R and Saturday is A, so every letter names exactly one day.
+     * @param letter the day letter (S, M, T, W, R, F, A)
+     * @return the mask bit, bit 0 is Monday and bit 6 is Sunday
+     * @throws IllegalArgumentException if the letter is not a day letter
+     */
+    public static int dayBit(char letter) {
+        switch (letter) {
+            case 'M': return 1;
+            case 'T': return 1 << 1;
+            case 'W': return 1 << 2;
+            case 'R': return 1 << 3;
+            case 'F': return 1 << 4;
+            case 'A': return 1 << 5;
+            case 'S': return 1 << 6;
+            default:
+                throw new IllegalArgumentException("Unknown day letter '" + letter + "'");
+        }
+    }
+
+    /**
+     * Formats a weekday bitmask as day letters, starting with Sunday.
+     * @param mask the weekday bitmask
+     * @return the day letters (S, M, T, W, R, F, A)
+     */
+    public static String formatDays(int mask) {
+        StringBuilder sb = new StringBuilder(7);
+        for (int index = 0; index < 7; index++) {
+            if ((mask & (1 << ((index + 6) % 7))) != 0) {
+                sb.append(DAY_LETTERS.charAt(index));
+            }
+        }
+        return sb.toString();
     }
 
     /**
@@ -113,17 +378,11 @@ public class Event {
     
         if (recurring) {
             // For recurring events, format with days of the week and recurrence period
-            StringBuilder daysOfWeek = new StringBuilder();
-            recurrenceDates.stream()
-                    .map(date -> date.getDayOfWeek().toString().substring(0, 1)) // Get first letter of day (M, T, W, etc.)
-                    .distinct() // Ensure no repeated days
-                    .forEach(daysOfWeek::append); // Append distinct days
-    
-            sb.append(name).append(" on ").append(daysOfWeek.toString())
+            sb.append(name).append(" on ").append(getDays())
               .append(" from ").append(timeInterval.getStart())
               .append(" to ").append(timeInterval.getEnd())
-              .append(" starting on ").append(recurrenceDates.get(0))  // First occurrence
-              .append(" until ").append(recurrenceDates.get(recurrenceDates.size() - 1));  // Last occurrence
+              .append(" starting on ").append(getFirstOccurrence())  // First occurrence
+              .append(" until ").append(getLastOccurrence());  // Last occurrence
         } else {
             // For one-time events, format with date and time range
             sb.append(name).append(" on ").append(date)
@@ -0,0 +1,339 @@
+/**
+*Streaming parser for the two-line event file format. Reads bytes straight from a channel
+*or buffer, parses dates and times without regex, split or formatters, and reports
+*malformed records with their line numbers instead of failing the whole load.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+public class EventFileParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Receives every event that parses successfully, in file order
+    private Consumer<Event> sink;
+    private List<String> errors;
+    private int recordCount;
+
+    // State carried from one line to the next
+    private int lineNumber;
+    private String pendingName;
+    private int pendingNameLine;
+
+    // Cursor and scratch space used while parsing one line
+    private int pos;
+    private byte[] scratch;
+
+    /**
+     * Creates a parser that passes each parsed event to the given consumer.
+     * @param sink the consumer receiving events in file order
+     */
+    public EventFileParser(Consumer<Event> sink) {
+        this.sink = sink;
+        this.errors = new ArrayList<>();
+        this.scratch = new byte[256];
+    }
+
+    /**
+     * Parses every record readable from a channel, reusing one buffer for the whole stream.
+     * @param channel the channel to read the event file from
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public void parse(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            int lineStart = buffer.position();
+            for (int i = lineStart; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    parseLine(buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            buffer.position(lineStart);
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                // A single line does not fit, grow the buffer
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+            parseLine(buffer, buffer.position(), buffer.limit());
+        }
+        finish();
+    }
+
+    /**
+     * Parses every record in a buffer, from its position to its limit.
+     * @param buffer          the bytes of the event file, or of a part of it starting on a record boundary
+     * @param firstLineNumber the line number of the first line in the buffer, used in error messages
+     */
+    public void parse(ByteBuffer buffer, int firstLineNumber) {
+        lineNumber = firstLineNumber - 1;
+        int lineStart = buffer.position();
+        int limit = buffer.limit();
+        for (int i = lineStart; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < limit) {
+            parseLine(buffer, lineStart, limit);
+        }
+        finish();
+    }
+
+    /**
+     * Returns the number of events parsed successfully.
+     * @return the number of records handed to the consumer
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the problems found while parsing, one message per rejected record.
+     * @return the error messages, each starting with the line number
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Reports a record whose name line is not followed by a details line.
+     */
+    private void finish() {
+        if (pendingName != null) {
+            errors.add("line " + pendingNameLine + ": event '" + pendingName + "' has no details line");
+            pendingName = null;
+        }
+    }
+
+    /**
+     * Handles one line: either the name of the next event or the details of the pending one.
+     * @param buffer the buffer holding the line
+     * @param start  the index of the first byte of the line
+     * @param end    the index just past the last byte of the line, excluding the newline
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        lineNumber++;
+
+        // Trim spaces, tabs and the carriage return of CRLF files
+        while (start < end && isBlank(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isBlank(buffer.get(end - 1))) {
+            end--;
+        }
+
+        if (pendingName == null) {
+            if (start < end) {
+                pendingName = decode(buffer, start, end);
+                pendingNameLine = lineNumber;
+            }
+            return;
+        }
+
+        String name = pendingName;
+        pendingName = null;
+        if (start == end) {
+            errors.add("line " + lineNumber + ": event '" + name + "' has an empty details line");
+            return;
+        }
+        try {
+            pos = start;
+            Event event = isDigit(buffer.get(start))
+                    ? parseOneTimeEvent(name, buffer, end)
+                    : parseRecurringEvent(name, buffer, end);
+            recordCount++;
+            sink.accept(event);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            errors.add("line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the details of a one-time event: date, start time and end time.
+     * @param name   the name of the event
+     * @param buffer the buffer holding the line, read from the current cursor
+     * @param end    the end of the line
+     * @return the parsed {@code Event}
+     */
+    private Event parseOneTimeEvent(String name, ByteBuffer buffer, int end) {
+        LocalDate date = parseDate(buffer, end);
+        skipSpaces(buffer, end);
+        LocalTime startTime = parseTime(buffer, end);
+        skipSpaces(buffer, end);
+        LocalTime endTime = parseTime(buffer, end);
+        expectEnd(end);
+
+        return new Event(name, new TimeInterval(startTime, endTime), date);
+    }
+
+    /**
+     * Parses the details of a recurring event: days, start time, end time, start date and end date.
+     * @param name   the name of the event
+     * @param buffer the buffer holding the line, read from the current cursor
+     * @param end    the end of the line
+     * @return the parsed {@code Event}
+     */
+    private Event parseRecurringEvent(String name, ByteBuffer buffer, int end) {
+        int dayMask = 0;
+        while (pos < end && !isBlank(buffer.get(pos))) {
+            dayMask |= Event.dayBit((char) buffer.get(pos++));
+        }
+        skipSpaces(buffer, end);
+        LocalTime startTime = parseTime(buffer, end);
+        skipSpaces(buffer, end);
+        LocalTime endTime = parseTime(buffer, end);
+        skipSpaces(buffer, end);
+        LocalDate startDate = parseDate(buffer, end);
+        skipSpaces(buffer, end);
+        LocalDate endDate = parseDate(buffer, end);
+        expectEnd(end);
+
+        return new Event(name, new TimeInterval(startTime, endTime), startDate, endDate, dayMask);
+    }
+
+    /**
+     * Parses a date in M/d/yy form; four digit years are accepted as well.
+     * @param buffer the buffer holding the line, read from the current cursor
+     * @param end    the end of the line
+     * @return the parsed date
+     */
+    private LocalDate parseDate(ByteBuffer buffer, int end) {
+        int month = parseNumber(buffer, end, 1, 2, "month");
+        expect(buffer, end, '/');
+        int day = parseNumber(buffer, end, 1, 2, "day");
+        expect(buffer, end, '/');
+        int digitsStart = pos;
+        int year = parseNumber(buffer, end, 2, 4, "year");
+        if (pos - digitsStart == 2) {
+            year += 2000;
+        } else if (pos - digitsStart != 4) {
+            throw new IllegalArgumentException("year must have 2 or 4 digits");
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Parses a time in H:mm form.
+     * @param buffer the buffer holding the line, read from the current cursor
+     * @param end    the end of the line
+     * @return the parsed time
+     */
+    private LocalTime parseTime(ByteBuffer buffer, int end) {
+        int hour = parseNumber(buffer, end, 1, 2, "hour");
+        expect(buffer, end, ':');
+        int digitsStart = pos;
+        int minute = parseNumber(buffer, end, 2, 2, "minute");
+        if (pos - digitsStart != 2) {
+            throw new IllegalArgumentException("minute must have 2 digits");
+        }
+        return LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Parses an unsigned decimal number at the cursor.
+     * @param buffer    the buffer holding the line
+     * @param end       the end of the line
+     * @param minDigits the fewest digits accepted
+     * @param maxDigits the most digits accepted
+     * @param field     the field name used in error messages
+     * @return the parsed value
+     */
+    private int parseNumber(ByteBuffer buffer, int end, int minDigits, int maxDigits, String field) {
+        int value = 0;
+        int digits = 0;
+        while (pos < end && digits < maxDigits && isDigit(buffer.get(pos))) {
+            value = value * 10 + (buffer.get(pos++) - '0');
+            digits++;
+        }
+        if (digits < minDigits) {
+            throw new IllegalArgumentException("expected " + field + " at column " + column(buffer, end));
+        }
+        return value;
+    }
+
+    /**
+     * Consumes one expected separator character at the cursor.
+     */
+    private void expect(ByteBuffer buffer, int end, char c) {
+        if (pos >= end || buffer.get(pos) != c) {
+            throw new IllegalArgumentException("expected '" + c + "' at column " + column(buffer, end));
+        }
+        pos++;
+    }
+
+    /**
+     * Consumes the spaces between two fields; at least one is required.
+     */
+    private void skipSpaces(ByteBuffer buffer, int end) {
+        if (pos >= end || !isBlank(buffer.get(pos))) {
+            throw new IllegalArgumentException("missing field at column " + column(buffer, end));
+        }
+        while (pos < end && isBlank(buffer.get(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Checks that the whole line was consumed.
+     */
+    private void expectEnd(int end) {
+        if (pos != end) {
+            throw new IllegalArgumentException("unexpected text after the last field");
+        }
+    }
+
+    /**
+     * Returns a 1-based column for error messages, counted from the start of the line.
+     */
+    private int column(ByteBuffer buffer, int end) {
+        int start = pos;
+        while (start > 0 && buffer.get(start - 1) != '\n') {
+            start--;
+        }
+        return pos - start + 1;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes of an event name.
+     */
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
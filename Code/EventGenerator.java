@@ -0,0 +1,118 @@
+/**
+*Generates synthetic calendars for benchmarks: a controlled mix of one-time and recurring
+*events spread over a date range, either as Event objects or as an events file.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class EventGenerator {
+    private static final String[] NAMES = {
+        "Standup", "Review", "Planning", "Lunch", "Gym", "Class", "Lab", "Office Hours",
+        "Interview", "Dentist", "Call", "Workshop", "Demo", "Retro", "Study Group", "Meeting"
+    };
+
+    private Random random;
+    private LocalDate firstDay;
+    private int days;
+    private double recurringShare;
+
+    /**
+     * Creates a generator with a fixed seed, so every run produces the same events.
+     * @param seed           the random seed
+     * @param firstDay       the first day events may fall on
+     * @param days           the number of days events are spread over
+     * @param recurringShare the share of recurring events, between 0 and 1
+     */
+    public EventGenerator(long seed, LocalDate firstDay, int days, double recurringShare) {
+        this.random = new Random(seed);
+        this.firstDay = firstDay;
+        this.days = days;
+        this.recurringShare = recurringShare;
+    }
+
+    /**
+     * Generates the given number of events.
+     * @param count the number of events
+     * @return the events, one-time and recurring mixed
+     */
+    public List<Event> generate(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(next());
+        }
+        return events;
+    }
+
+    /**
+     * Generates one event.
+     * Recurring events run for one to twelve weeks on one to three weekdays.
+     * @return the next event
+     */
+    public Event next() {
+        String name = NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(1000);
+        int startMinute = 6 * 60 + random.nextInt(14 * 60);
+        int length = 15 * (1 + random.nextInt(8));
+        TimeInterval interval = new TimeInterval(LocalTime.of(startMinute / 60, startMinute % 60),
+                LocalTime.of((startMinute + length) / 60, (startMinute + length) % 60));
+        LocalDate date = firstDay.plusDays(random.nextInt(days));
+
+        if (random.nextDouble() < recurringShare) {
+            int dayMask = 0;
+            for (int d = 1 + random.nextInt(3); d > 0; d--) {
+                dayMask |= 1 << random.nextInt(7);
+            }
+            return new Event(name, interval, date, date.plusWeeks(1 + random.nextInt(12)), dayMask);
+        }
+        return new Event(name, interval, date);
+    }
+
+    /**
+     * Generates events and writes them to a file in the events file format.
+     * @param filename the file to write
+     * @param count    the number of events
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeEventsFile(String filename, int count) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+            for (int i = 0; i < count; i++) {
+                Event event = next();
+                writer.write(event.getName());
+                writer.newLine();
+                if (event.isRecurring()) {
+                    writer.write(event.getDays() + " " + formatTime(event.getStartTime()) + " " + formatTime(event.getEndTime())
+                            + " " + formatDate(event.getStartDate()) + " " + formatDate(event.getEndDate()));
+                } else {
+                    writer.write(formatDate(event.getDate()) + " " + formatTime(event.getStartTime()) + " " + formatTime(event.getEndTime()));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Formats a date as M/d/yy.
+     */
+    private static String formatDate(LocalDate date) {
+        return date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + String.format("%02d", date.getYear() % 100);
+    }
+
+    /**
+     * Formats a time as H:mm.
+     */
+    private static String formatTime(LocalTime time) {
+        return time.getHour() + ":" + String.format("%02d", time.getMinute());
+    }
+}
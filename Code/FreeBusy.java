@@ -0,0 +1,238 @@
+/**
+*Free/busy engine over a calendar. The busy time of each day is the union of its events, kept as a
+*compact sorted array of [start, end) pairs in nanoseconds of day and cached with the day's interval
+*index, so slot searches walk the gaps between busy intervals instead of the events themselves.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+
+public class FreeBusy {
+    // Busy intervals of a day as start, end pairs in nanoseconds of day
+    private Function<LocalDate, long[]> busyOfDay;
+
+    /**
+     * Creates a free/busy engine for one calendar.
+     * @param calendar the calendar whose events make up the busy time
+     */
+    public FreeBusy(MyCalendar calendar) {
+        this(calendar::getBusy);
+    }
+
+    /**
+     * Creates a free/busy engine over any source of busy intervals, such as several calendars combined.
+     * @param busyOfDay returns the busy intervals of a day as sorted, disjoint start, end pairs in nanoseconds of day
+     */
+    FreeBusy(Function<LocalDate, long[]> busyOfDay) {
+        this.busyOfDay = busyOfDay;
+    }
+
+    /**
+     * Returns the busy time of a day, with overlapping and touching events merged.
+     * @param date the date
+     * @return the busy intervals in time order
+     */
+    public List<TimeInterval> getBusy(LocalDate date) {
+        long[] busy = busyOfDay.apply(date);
+        List<TimeInterval> intervals = new ArrayList<>(busy.length / 2);
+        for (int i = 0; i < busy.length; i += 2) {
+            intervals.add(new TimeInterval(LocalTime.ofNanoOfDay(busy[i]), LocalTime.ofNanoOfDay(busy[i + 1])));
+        }
+        return intervals;
+    }
+
+    /**
+     * Returns the free time of a day between two times.
+     * @param date  the date
+     * @param start the start of the window
+     * @param end   the end of the window
+     * @return the free intervals of the window in time order
+     */
+    public List<TimeInterval> getFree(LocalDate date, LocalTime start, LocalTime end) {
+        long[] busy = busyOfDay.apply(date);
+        long windowEnd = end.toNanoOfDay();
+        List<TimeInterval> free = new ArrayList<>();
+        long pos = start.toNanoOfDay();
+        for (int i = firstEndingAfter(busy, pos); pos < windowEnd; i += 2) {
+            long gapEnd = i < busy.length ? Math.min(busy[i], windowEnd) : windowEnd;
+            if (gapEnd > pos) {
+                free.add(new TimeInterval(LocalTime.ofNanoOfDay(pos), LocalTime.ofNanoOfDay(gapEnd)));
+            }
+            if (i >= busy.length) {
+                break;
+            }
+            pos = Math.max(pos, busy[i + 1]);
+        }
+        return free;
+    }
+
+    /**
+     * Checks if a time interval of a day is completely free, that is, does not overlap the busy time.
+     * This is the same as {@link TimeInterval#overlaps(TimeInterval)} finding no overlapping event,
+     * except for an empty interval at the time where one event ends and a touching one starts:
+     * the busy time merges the two, so the empty interval counts as busy there.
+     * @param date     the date
+     * @param interval the time interval
+     * @return {@code true} if the interval does not overlap the busy time
+     */
+    public boolean isFree(LocalDate date, TimeInterval interval) {
+        long[] busy = busyOfDay.apply(date);
+        int i = firstEndingAfter(busy, interval.getStart().toNanoOfDay());
+        return i >= busy.length || busy[i] >= interval.getEnd().toNanoOfDay();
+    }
+
+    /**
+     * Finds the first free slots of a given length between two dates within working hours.
+     * Slots are laid back to back from the start of each free gap, so a long gap yields several slots.
+     * @param from      the first day to search
+     * @param to        the last day to search
+     * @param workStart the earliest start of a slot on each day
+     * @param workEnd   the latest end of a slot on each day
+     * @param length    the length of a slot
+     * @param count     the number of slots wanted
+     * @return up to {@code count} free slots, in time order
+     * @throws IllegalArgumentException if the length is not positive or does not fit the working hours,
+     *                                  or the count is negative
+     */
+    public List<Slot> findFreeSlots(LocalDate from, LocalDate to, LocalTime workStart, LocalTime workEnd,
+                                    Duration length, int count) {
+        long dayStart = workStart.toNanoOfDay();
+        long dayEnd = workEnd.toNanoOfDay();
+        if (length.isNegative() || length.isZero() || length.compareTo(Duration.ofNanos(dayEnd - dayStart)) > 0) {
+            throw new IllegalArgumentException("A slot of " + length + " does not fit between " + workStart + " and " + workEnd);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Cannot look for a negative number of slots: " + count);
+        }
+        long nanos = length.toNanos();
+
+        List<Slot> slots = new ArrayList<>(Math.min(count, 64));
+        for (LocalDate date = from; !date.isAfter(to) && slots.size() < count; date = date.plusDays(1)) {
+            long[] busy = busyOfDay.apply(date);
+            long pos = dayStart;
+            for (int i = firstEndingAfter(busy, pos); slots.size() < count; i += 2) {
+                long gapEnd = i < busy.length ? Math.min(busy[i], dayEnd) : dayEnd;
+                while (pos + nanos <= gapEnd && slots.size() < count) {
+                    slots.add(new Slot(date, new TimeInterval(LocalTime.ofNanoOfDay(pos), LocalTime.ofNanoOfDay(pos + nanos))));
+                    pos += nanos;
+                }
+                if (i >= busy.length || busy[i] >= dayEnd) {
+                    break;
+                }
+                pos = Math.max(pos, busy[i + 1]);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Merges two busy vectors into their union.
+     * @param a busy intervals as sorted, disjoint start, end pairs
+     * @param b busy intervals as sorted, disjoint start, end pairs
+     * @return the union, as sorted, disjoint start, end pairs
+     */
+    static long[] union(long[] a, long[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        long[] merged = new long[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long start;
+            long end;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                start = a[i];
+                end = a[i + 1];
+                i += 2;
+            } else {
+                start = b[j];
+                end = b[j + 1];
+                j += 2;
+            }
+            if (n > 0 && start <= merged[n - 1]) {
+                merged[n - 1] = Math.max(merged[n - 1], end);
+            } else {
+                merged[n++] = start;
+                merged[n++] = end;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    /**
+     * Returns the position of the first busy interval that ends after the given nanosecond,
+     * or the length of the array if there is none.
+     */
+    private static int firstEndingAfter(long[] busy, long nano) {
+        int lo = 0;
+        int hi = busy.length / 2;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (busy[2 * mid + 1] <= nano) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return 2 * lo;
+    }
+
+    /**
+     * A free slot: a date and a time interval on it.
+     */
+    public static class Slot {
+        private LocalDate date;
+        private TimeInterval interval;
+
+        /**
+         * Constructs a slot.
+         * @param date     the date of the slot
+         * @param interval the time interval of the slot
+         */
+        public Slot(LocalDate date, TimeInterval interval) {
+            this.date = date;
+            this.interval = interval;
+        }
+
+        /**
+         * Returns the date of the slot.
+         * @return the date
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * Returns the time interval of the slot.
+         * @return the time interval
+         */
+        public TimeInterval getInterval() {
+            return interval;
+        }
+
+        /**
+         * Returns the date followed by the time interval.
+         * @return a string representation of the slot
+         */
+        @Override
+        public String toString() {
+            return date + " " + interval;
+        }
+    }
+}
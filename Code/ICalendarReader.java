@@ -0,0 +1,571 @@
+/**
+*Streaming reader for iCalendar (.ics) files. Reads one content line at a time, unfolding
+*continuation lines as it goes, and hands each VEVENT to a consumer as soon as its END line
+*is read, so memory stays the same whatever the size of the document.
+*A VEVENT becomes a one-time event, or a recurring event when it has a weekly or daily RRULE
+*with BYDAY, UNTIL or COUNT. Times in UTC or with a known TZID are converted to the reader's
+*time zone; floating times are taken as written. Events the calendar cannot represent are
+*skipped and reported with their line number instead of failing the whole load.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+public class ICalendarReader {
+    // BYDAY codes in mask bit order: bit 0 is Monday ... bit 6 is Sunday
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+    // Latest time an event can end on its own day
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59);
+
+    // Receives every event that reads successfully, in file order
+    private Consumer<Event> sink;
+    private ZoneId zone;
+    private Period openEndedHorizon;
+    private List<String> errors;
+    private List<String> warnings;
+    private int recordCount;
+
+    // Nesting of the component being read, and the depth of the open VEVENT, 0 if none
+    private int depth;
+    private int eventDepth;
+    // Properties of the open VEVENT
+    private int eventLine;
+    private String summary;
+    private String error;
+    private boolean cancelled;
+    private boolean changedOccurrence;
+    private boolean exceptions;
+    private DateValue dtStart;
+    private DateValue dtEnd;
+    private long durationSeconds;
+    private boolean hasDuration;
+    private String rrule;
+    private int rruleLine;
+
+    /**
+     * Creates a reader that converts zoned times to the system time zone.
+     * @param sink the consumer receiving events in file order
+     */
+    public ICalendarReader(Consumer<Event> sink) {
+        this(sink, ZoneId.systemDefault());
+    }
+
+    /**
+     * Creates a reader that passes each event read to the given consumer.
+     * @param sink the consumer receiving events in file order
+     * @param zone the time zone that times given in UTC or with a TZID are converted to
+     */
+    public ICalendarReader(Consumer<Event> sink, ZoneId zone) {
+        this.sink = sink;
+        this.zone = zone;
+        this.openEndedHorizon = Period.ofYears(2);
+        this.errors = new ArrayList<>();
+        this.warnings = new ArrayList<>();
+    }
+
+    /**
+     * Sets how long a recurrence with neither UNTIL nor COUNT runs, as events need an end date.
+     * @param horizon the period after the first day of the event, two years by default
+     */
+    public void setOpenEndedHorizon(Period horizon) {
+        this.openEndedHorizon = horizon;
+    }
+
+    /**
+     * Reads every VEVENT of a document. Only the current content line is held in memory.
+     * @param in the document, decoded as UTF-8
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public void parse(BufferedReader in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int lineNumber = 0;
+        int lineStart = 0;
+        String physical;
+        while ((physical = in.readLine()) != null) {
+            lineNumber++;
+            if (!physical.isEmpty() && (physical.charAt(0) == ' ' || physical.charAt(0) == '\t')) {
+                // A folded line continues the previous one without its leading blank
+                line.append(physical, 1, physical.length());
+                continue;
+            }
+            if (line.length() > 0) {
+                contentLine(line.toString(), lineStart);
+            }
+            line.setLength(0);
+            line.append(physical);
+            lineStart = lineNumber;
+        }
+        if (line.length() > 0) {
+            contentLine(line.toString(), lineStart);
+        }
+        if (eventDepth != 0) {
+            errors.add("line " + eventLine + ": VEVENT has no END line");
+            eventDepth = 0;
+        }
+    }
+
+    /**
+     * Returns the number of events read successfully.
+     * @return the number of events handed to the consumer
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the problems found while reading, one message per skipped VEVENT.
+     * @return the error messages, each starting with the line number
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the parts of events that were read but could not be represented, such as
+     * EXDATE exceptions, and the changed occurrences that were left out.
+     * @return the warning messages, each starting with the line number
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Handles one unfolded content line: NAME *(;PARAM=VALUE) : VALUE.
+     * @param line       the content line
+     * @param lineNumber the line number of its first physical line
+     */
+    private void contentLine(String line, int lineNumber) {
+        int colon = -1;
+        boolean quoted = false;
+        for (int i = 0; i < line.length() && colon < 0; i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                colon = i;
+            }
+        }
+        if (colon < 0) {
+            if (eventDepth != 0 && depth == eventDepth && error == null && !line.trim().isEmpty()) {
+                error = "line " + lineNumber + ": malformed line '" + line + "'";
+            }
+            return;
+        }
+        String head = line.substring(0, colon);
+        String value = line.substring(colon + 1);
+        int semicolon = head.indexOf(';');
+        String name = (semicolon < 0 ? head : head.substring(0, semicolon)).toUpperCase();
+        String params = semicolon < 0 ? "" : head.substring(semicolon + 1);
+
+        if (name.equals("BEGIN")) {
+            depth++;
+            if (eventDepth == 0 && value.equalsIgnoreCase("VEVENT")) {
+                beginEvent(lineNumber);
+            }
+            return;
+        }
+        if (name.equals("END")) {
+            if (depth == eventDepth && eventDepth != 0) {
+                endEvent();
+            }
+            depth = Math.max(0, depth - 1);
+            return;
+        }
+        // Properties of components nested in the event, such as VALARM, are not the event's
+        if (eventDepth == 0 || depth != eventDepth || error != null) {
+            return;
+        }
+        try {
+            switch (name) {
+                case "SUMMARY":
+                    summary = unescape(value);
+                    break;
+                case "DTSTART":
+                    dtStart = parseDateValue(value, params);
+                    break;
+                case "DTEND":
+                    dtEnd = parseDateValue(value, params);
+                    break;
+                case "DURATION":
+                    durationSeconds = parseDuration(value);
+                    hasDuration = true;
+                    break;
+                case "RRULE":
+                    rrule = value;
+                    rruleLine = lineNumber;
+                    break;
+                case "RECURRENCE-ID":
+                    changedOccurrence = true;
+                    break;
+                case "EXDATE":
+                case "RDATE":
+                    exceptions = true;
+                    break;
+                case "STATUS":
+                    cancelled = value.equalsIgnoreCase("CANCELLED");
+                    break;
+                default:
+                    break;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            error = "line " + lineNumber + ": " + e.getMessage();
+        }
+    }
+
+    private void beginEvent(int lineNumber) {
+        eventDepth = depth;
+        eventLine = lineNumber;
+        summary = null;
+        error = null;
+        cancelled = false;
+        changedOccurrence = false;
+        exceptions = false;
+        dtStart = null;
+        dtEnd = null;
+        hasDuration = false;
+        rrule = null;
+    }
+
+    /**
+     * Builds the event of the VEVENT just closed and passes it on, or records why it cannot be.
+     */
+    private void endEvent() {
+        eventDepth = 0;
+        if (error != null) {
+            errors.add(error);
+            return;
+        }
+        String name = summary == null ? "" : summary.trim();
+        if (cancelled) {
+            return;
+        }
+        if (changedOccurrence) {
+            warnings.add("line " + eventLine + ": changed occurrence of '" + name + "' left out");
+            return;
+        }
+        try {
+            Event event = toEvent(name);
+            if (exceptions) {
+                warnings.add("line " + eventLine + ": EXDATE and RDATE of '" + name + "' ignored");
+            }
+            recordCount++;
+            sink.accept(event);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            errors.add("line " + eventLine + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Maps the properties of the closed VEVENT to an {@code Event}.
+     * @param name the summary of the event
+     * @return the one-time or recurring event
+     * @throws IllegalArgumentException if the event cannot be represented
+     */
+    private Event toEvent(String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("VEVENT has no SUMMARY");
+        }
+        if (dtStart == null) {
+            throw new IllegalArgumentException("event '" + name + "' has no DTSTART");
+        }
+        LocalDateTime start = dtStart.dateTime;
+        LocalDateTime end;
+        if (dtEnd != null) {
+            end = dtEnd.dateTime;
+        } else if (hasDuration) {
+            end = start.plusSeconds(durationSeconds);
+        } else {
+            // Without an end, a date lasts the whole day and a date-time is an instant
+            end = dtStart.allDay ? start.plusDays(1) : start;
+        }
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("event '" + name + "' ends before it starts");
+        }
+        LocalDate date = start.toLocalDate();
+
+        if (dtStart.allDay) {
+            TimeInterval allDay = new TimeInterval(LocalTime.MIDNIGHT, END_OF_DAY);
+            LocalDate lastDay = end.toLocalDate().minusDays(1);
+            if (lastDay.isAfter(date)) {
+                // A multi-day all-day event takes every day of its range
+                if (rrule != null) {
+                    throw new IllegalArgumentException("repeating multi-day event '" + name + "' is not supported");
+                }
+                return new Event(name, allDay, date, lastDay, 0x7F);
+            }
+            return rrule == null ? new Event(name, allDay, date) : recurring(name, allDay, date);
+        }
+
+        LocalTime endTime;
+        if (end.toLocalDate().equals(date)) {
+            endTime = end.toLocalTime();
+        } else if (end.equals(date.plusDays(1).atStartOfDay())) {
+            endTime = END_OF_DAY;
+        } else {
+            throw new IllegalArgumentException("event '" + name + "' ends on a later day than it starts");
+        }
+        TimeInterval interval = new TimeInterval(start.toLocalTime(), endTime);
+        return rrule == null ? new Event(name, interval, date) : recurring(name, interval, date);
+    }
+
+    /**
+     * Builds a recurring event from the RRULE of the closed VEVENT.
+     * Only FREQ=WEEKLY and FREQ=DAILY with an INTERVAL of 1 map to a weekday mask.
+     */
+    private Event recurring(String name, TimeInterval interval, LocalDate startDate) {
+        String frequency = null;
+        int mask = 0;
+        LocalDate until = null;
+        int count = -1;
+        for (String part : rrule.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("malformed RRULE part '" + part + "' on line " + rruleLine);
+            }
+            String key = part.substring(0, equals).toUpperCase();
+            String value = part.substring(equals + 1).toUpperCase();
+            switch (key) {
+                case "FREQ":
+                    frequency = value;
+                    break;
+                case "INTERVAL":
+                    if (Integer.parseInt(value) != 1) {
+                        throw new IllegalArgumentException("RRULE INTERVAL=" + value + " of '" + name + "' is not supported");
+                    }
+                    break;
+                case "BYDAY":
+                    for (String day : value.split(",")) {
+                        mask |= dayCodeBit(day);
+                    }
+                    break;
+                case "UNTIL":
+                    until = untilDate(value, interval.getStart());
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(value);
+                    break;
+                case "WKST":
+                    break;
+                default:
+                    throw new IllegalArgumentException("RRULE " + key + " of '" + name + "' is not supported");
+            }
+        }
+        if (!"WEEKLY".equals(frequency) && !"DAILY".equals(frequency)) {
+            throw new IllegalArgumentException("RRULE FREQ=" + frequency + " of '" + name + "' is not supported");
+        }
+        if (mask == 0) {
+            mask = "DAILY".equals(frequency) ? 0x7F : Event.dayBit(dtStart.writtenDate);
+        }
+        // Converting the start to our zone may have moved it to the day before or after
+        mask = rotate(mask, (int) (startDate.toEpochDay() - dtStart.writtenDate.toEpochDay()));
+        if (until != null && count >= 0) {
+            throw new IllegalArgumentException("RRULE of '" + name + "' has both UNTIL and COUNT");
+        }
+        LocalDate endDate;
+        if (until != null) {
+            endDate = until;
+        } else if (count >= 0) {
+            endDate = nthOccurrence(mask, startDate, count);
+        } else {
+            endDate = startDate.plus(openEndedHorizon);
+        }
+        return new Event(name, interval, startDate, endDate, mask);
+    }
+
+    /**
+     * Returns the date of the count-th matching weekday from a date on, or the day before the
+     * date if count is 0, without stepping through every week.
+     */
+    private static LocalDate nthOccurrence(int mask, LocalDate from, int count) {
+        if (count <= 0) {
+            return from.minusDays(1);
+        }
+        int perWeek = Integer.bitCount(mask);
+        LocalDate day = from.plusDays(Event.daysUntil(mask, from)).plusWeeks((count - 1) / perWeek);
+        for (int step = (count - 1) % perWeek; step > 0; step--) {
+            day = day.plusDays(1);
+            day = day.plusDays(Event.daysUntil(mask, day));
+        }
+        return day;
+    }
+
+    /**
+     * Parses UNTIL as the last date an occurrence starting at the given time may fall on.
+     */
+    private LocalDate untilDate(String value, LocalTime startTime) {
+        DateValue until = parseDateValue(value, "");
+        if (until.allDay) {
+            return until.dateTime.toLocalDate();
+        }
+        LocalDate date = until.dateTime.toLocalDate();
+        return startTime.isAfter(until.dateTime.toLocalTime()) ? date.minusDays(1) : date;
+    }
+
+    /**
+     * Moves every day of a weekday mask by a number of days.
+     */
+    private static int rotate(int mask, int days) {
+        int shift = Math.floorMod(days, 7);
+        return ((mask << shift) | (mask >>> (7 - shift))) & 0x7F;
+    }
+
+    /**
+     * Maps a BYDAY code to its weekday mask bit. Numbered days such as 1MO belong to
+     * monthly and yearly rules, which are not supported.
+     */
+    private static int dayCodeBit(String code) {
+        for (int bit = 0; bit < DAY_CODES.length; bit++) {
+            if (DAY_CODES[bit].equals(code)) {
+                return 1 << bit;
+            }
+        }
+        throw new IllegalArgumentException("BYDAY value '" + code + "' is not supported");
+    }
+
+    /**
+     * Parses a DATE or DATE-TIME value, converting UTC and TZID times to the reader's zone.
+     * @param value  the value, YYYYMMDD or YYYYMMDDTHHMMSS with an optional Z
+     * @param params the property parameters, to find TZID
+     */
+    private DateValue parseDateValue(String value, String params) {
+        value = value.trim();
+        LocalDate date = LocalDate.of(digits(value, 0, 4), digits(value, 4, 6), digits(value, 6, 8));
+        if (value.length() == 8) {
+            return new DateValue(date.atStartOfDay(), date, true);
+        }
+        if (value.charAt(8) != 'T' || (value.length() != 15 && !(value.length() == 16 && value.charAt(15) == 'Z'))) {
+            throw new IllegalArgumentException("invalid date-time '" + value + "'");
+        }
+        LocalDateTime written = date.atTime(digits(value, 9, 11), digits(value, 11, 13), digits(value, 13, 15));
+        ZoneId from = value.length() == 16 ? ZoneOffset.UTC : timeZone(params);
+        LocalDateTime local = from == null ? written : written.atZone(from).withZoneSameInstant(zone).toLocalDateTime();
+        return new DateValue(local, date, false);
+    }
+
+    /**
+     * Returns the zone named by a TZID parameter, or null if there is none or it is not a
+     * zone Java knows, in which case the time is taken as written.
+     */
+    private static ZoneId timeZone(String params) {
+        for (String param : params.split(";")) {
+            if (param.regionMatches(true, 0, "TZID=", 0, 5)) {
+                String id = param.substring(5).replace("\"", "");
+                try {
+                    return ZoneId.of(id.startsWith("/") ? id.substring(1) : id);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a DURATION value such as PT1H30M, P1D or P2W into seconds.
+     */
+    private static long parseDuration(String value) {
+        value = value.trim();
+        int pos = 0;
+        boolean negative = false;
+        if (value.startsWith("+") || value.startsWith("-")) {
+            negative = value.charAt(0) == '-';
+            pos++;
+        }
+        if (pos >= value.length() || value.charAt(pos++) != 'P') {
+            throw new IllegalArgumentException("invalid duration '" + value + "'");
+        }
+        long seconds = 0;
+        long number = -1;
+        for (; pos < value.length(); pos++) {
+            char c = value.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                number = (number < 0 ? 0 : number * 10) + (c - '0');
+                continue;
+            }
+            if (c == 'T') {
+                continue;
+            }
+            if (number < 0) {
+                throw new IllegalArgumentException("invalid duration '" + value + "'");
+            }
+            switch (c) {
+                case 'W': seconds += number * 7 * 86400; break;
+                case 'D': seconds += number * 86400; break;
+                case 'H': seconds += number * 3600; break;
+                case 'M': seconds += number * 60; break;
+                case 'S': seconds += number; break;
+                default:
+                    throw new IllegalArgumentException("invalid duration '" + value + "'");
+            }
+            number = -1;
+        }
+        return negative ? -seconds : seconds;
+    }
+
+    /**
+     * Parses the decimal digits of a value between two indexes.
+     */
+    private static int digits(String value, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("invalid date '" + value + "'");
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Undoes the escaping of a TEXT value: \\, \;, \, and \n. Names are one line, so newlines become spaces.
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A DATE or DATE-TIME value: the time in the reader's zone, the date as written, and
+     * whether it was a plain date.
+     */
+    private static class DateValue {
+        private final LocalDateTime dateTime;
+        private final LocalDate writtenDate;
+        private final boolean allDay;
+
+        private DateValue(LocalDateTime dateTime, LocalDate writtenDate, boolean allDay) {
+            this.dateTime = dateTime;
+            this.writtenDate = writtenDate;
+            this.allDay = allDay;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+*Streaming writer for iCalendar (.ics) files. Each event is written as soon as it is given,
+*so a whole calendar, or every occurrence of a long date range, can be exported without
+*building the document in memory.
+*Recurring events are written as one VEVENT with a weekly RRULE, or occurrence by occurrence
+*as separate VEVENTs. Times are floating, as the calendar has no time zones. Lines are
+*folded at 75 octets and end with CRLF as RFC 5545 requires.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+
+public class ICalendarWriter implements Closeable {
+    // BYDAY codes in mask bit order: bit 0 is Monday ... bit 6 is Sunday
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+    // Longest line before folding, in octets of UTF-8, not counting the CRLF
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private Writer out;
+    // DTSTAMP of every event: the time the export started, in UTC
+    private String stamp;
+    private int eventCount;
+
+    /**
+     * Starts a document by writing the VCALENDAR header.
+     * @param out the target, encoding characters as UTF-8
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public ICalendarWriter(Writer out) throws IOException {
+        this.out = out;
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        this.stamp = formatDate(now.toLocalDate()) + "T" + formatTime(now.toLocalTime()) + "Z";
+        writeLine("BEGIN:VCALENDAR");
+        writeLine("VERSION:2.0");
+        writeLine("PRODID:-//CS151//MyCalendar//EN");
+        writeLine("CALSCALE:GREGORIAN");
+    }
+
+    /**
+     * Writes an event. A recurring event is written once with an RRULE covering its occurrences;
+     * one that never occurs is not written.
+     * @param event the {@code Event} to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeEvent(Event event) throws IOException {
+        if (!event.isRecurring()) {
+            writeVEvent(event, event.getDate(), null);
+            return;
+        }
+        LocalDate first = event.getFirstOccurrence();
+        if (first == null) {
+            return;
+        }
+        // UNTIL takes the form of DTSTART, a floating date-time, and includes the last start
+        String rule = "FREQ=WEEKLY;BYDAY=" + formatDays(event.getDayMask())
+                + ";UNTIL=" + formatDateTime(event.getLastOccurrence(), event.getStartTime());
+        writeVEvent(event, first, rule);
+    }
+
+    /**
+     * Writes one occurrence as an event of its own on its date.
+     * @param occurrence the occurrence to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeOccurrence(Occurrence occurrence) throws IOException {
+        writeVEvent(occurrence.getEvent(), occurrence.getDate(), null);
+    }
+
+    /**
+     * Returns the number of VEVENTs written so far.
+     * @return the number of events written
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Ends the document and closes the target.
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeLine("END:VCALENDAR");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a VEVENT starting on a date, with an optional recurrence rule.
+     * The UID is derived from the event's fields and the date, so exporting the same calendar
+     * again gives the same UIDs.
+     */
+    private void writeVEvent(Event event, LocalDate date, String rule) throws IOException {
+        String start = formatDateTime(date, event.getStartTime());
+        String end = formatDateTime(date, event.getEndTime());
+        String key = event.getName() + "|" + start + "|" + end + "|" + (rule == null ? "" : rule);
+        writeLine("BEGIN:VEVENT");
+        writeLine("UID:" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + "@mycalendar");
+        writeLine("DTSTAMP:" + stamp);
+        writeLine("DTSTART:" + start);
+        writeLine("DTEND:" + end);
+        if (rule != null) {
+            writeLine("RRULE:" + rule);
+        }
+        writeLine("SUMMARY:" + escape(event.getName()));
+        writeLine("END:VEVENT");
+        eventCount++;
+    }
+
+    /**
+     * Writes a content line, folding it so no line is longer than 75 octets. Folds fall between
+     * characters, never inside the UTF-8 bytes of one.
+     */
+    private void writeLine(String line) throws IOException {
+        int octets = 0;
+        int segment = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > MAX_LINE_OCTETS) {
+                // The leading space of the continuation counts toward its length
+                out.write(line, segment, i - segment);
+                out.write("\r\n ");
+                segment = i;
+                octets = 1;
+            }
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        out.write(line, segment, line.length() - segment);
+        out.write("\r\n");
+    }
+
+    /**
+     * Escapes a TEXT value: backslashes, semicolons, commas and newlines.
+     */
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case ';': sb.append("\\;"); break;
+                case ',': sb.append("\\,"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats a weekday mask as BYDAY codes, starting with Monday.
+     */
+    private static String formatDays(int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < DAY_CODES.length; bit++) {
+            if ((mask & (1 << bit)) != 0) {
+                sb.append(sb.length() == 0 ? "" : ",").append(DAY_CODES[bit]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String formatDateTime(LocalDate date, LocalTime time) {
+        return formatDate(date) + "T" + formatTime(time);
+    }
+
+    private static String formatDate(LocalDate date) {
+        StringBuilder sb = new StringBuilder(8);
+        appendDigits(sb, date.getYear(), 4);
+        appendDigits(sb, date.getMonthValue(), 2);
+        appendDigits(sb, date.getDayOfMonth(), 2);
+        return sb.toString();
+    }
+
+    private static String formatTime(LocalTime time) {
+        StringBuilder sb = new StringBuilder(6);
+        appendDigits(sb, time.getHour(), 2);
+        appendDigits(sb, time.getMinute(), 2);
+        appendDigits(sb, time.getSecond(), 2);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a number padded with zeros to a width, without going through a formatter.
+     */
+    private static void appendDigits(StringBuilder sb, int value, int width) {
+        for (int divisor = (int) Math.pow(10, width - 1); divisor > 0; divisor /= 10) {
+            sb.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
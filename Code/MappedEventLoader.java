@@ -0,0 +1,244 @@
+/**
+*Bulk loader for very large event files. Maps the file with FileChannel.map, splits it into
+*chunks that start on a record boundary and parses the chunks in parallel. Results are
+*returned in file order so the calendar is filled exactly as a sequential load would.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+
+public class MappedEventLoader {
+    // Chunks are kept well below the 2 GB limit of a single mapping
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+    private static final long MIN_CHUNK_SIZE = 1024L * 1024;
+    private static final int SCAN_BLOCK = 8 * 1024;
+
+    private List<String> errors;
+
+    /**
+     * Creates a loader with an empty error list.
+     */
+    public MappedEventLoader() {
+        this.errors = new ArrayList<>();
+    }
+
+    /**
+     * Parses an event file in parallel and passes the events to the consumer in file order.
+     * The consumer is only called from the calling thread, after all chunks are parsed.
+     * @param filename the name of the file containing event data
+     * @param sink     the consumer receiving the events
+     * @return the number of events loaded
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public int load(String filename, Consumer<Event> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+
+            long[] bounds = lineAlignedBounds(channel, size);
+            int chunks = bounds.length - 1;
+
+            // First pass: count lines and find where each chunk leaves the name/details pairing
+            ChunkScan[] scans = IntStream.range(0, chunks).parallel()
+                    .mapToObj(i -> scan(map(channel, bounds[i], bounds[i + 1])))
+                    .toArray(ChunkScan[]::new);
+
+            // Move a chunk's first line to the previous chunk when it holds that chunk's details
+            int[] firstLine = new int[chunks];
+            boolean pending = false;
+            int line = 1;
+            for (int i = 0; i < chunks; i++) {
+                firstLine[i] = line;
+                if (pending) {
+                    bounds[i] = bounds[i] + scans[i].firstLineLength;
+                    firstLine[i]++;
+                    pending = scans[i].pendingFromPending;
+                } else {
+                    pending = scans[i].pendingFromIdle;
+                }
+                line += scans[i].lines;
+            }
+
+            // Second pass: parse every chunk on its own parser
+            ChunkResult[] results = IntStream.range(0, chunks).parallel()
+                    .mapToObj(i -> parse(map(channel, bounds[i], bounds[i + 1]), firstLine[i]))
+                    .toArray(ChunkResult[]::new);
+
+            // Merge in file order
+            int count = 0;
+            for (ChunkResult result : results) {
+                for (Event event : result.events) {
+                    sink.accept(event);
+                }
+                count += result.events.size();
+                errors.addAll(result.errors);
+            }
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the problems found while loading, in file order.
+     * @return the error messages, each starting with the line number
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Splits the file into chunks of roughly equal size, each starting at the beginning of a line.
+     * @param channel the channel of the event file
+     * @param size    the size of the file
+     * @return the increasing chunk boundaries, from 0 to {@code size}
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private static long[] lineAlignedBounds(FileChannel channel, long size) throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (cores * 4L) + 1));
+        int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+        // Boundaries that snap to the same line start are dropped, so no chunk is empty
+        long[] bounds = new long[chunks + 1];
+        int count = 1;
+        for (int i = 1; i < chunks; i++) {
+            long bound = nextLineStart(channel, i * chunkSize, size);
+            if (bound > bounds[count - 1] && bound < size) {
+                bounds[count++] = bound;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Finds the start of the first line beginning at or after the given offset.
+     * @param channel the channel of the event file
+     * @param offset  the offset to search from
+     * @param size    the size of the file
+     * @return the offset just past the first newline found at or after {@code offset - 1}
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private static long nextLineStart(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        long position = offset - 1;
+        while (position < size) {
+            block.clear();
+            int read = channel.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Maps one chunk of the file read-only.
+     */
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Counts the lines of a chunk and runs the name/details pairing over it from both starting states.
+     * @param buffer the mapped chunk
+     * @return the line count and pairing state of the chunk
+     */
+    private static ChunkScan scan(ByteBuffer buffer) {
+        ChunkScan scan = new ChunkScan();
+        // Pairing state when the chunk is entered between records, or right after a name line
+        boolean fromIdle = false;
+        boolean fromPending = true;
+        int lineStart = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buffer.get(i) != '\n') {
+                continue;
+            }
+            if (i == limit && lineStart == limit) {
+                break;
+            }
+            boolean blank = isBlankLine(buffer, lineStart, i);
+            fromIdle = fromIdle ? false : !blank;
+            fromPending = fromPending ? false : !blank;
+            if (scan.lines == 0) {
+                scan.firstLineLength = Math.min(i + 1, limit);
+            }
+            scan.lines++;
+            lineStart = i + 1;
+        }
+        scan.pendingFromIdle = fromIdle;
+        scan.pendingFromPending = fromPending;
+        return scan;
+    }
+
+    /**
+     * Parses one chunk that starts on a record boundary.
+     */
+    private static ChunkResult parse(ByteBuffer buffer, int firstLineNumber) {
+        ChunkResult result = new ChunkResult();
+        EventFileParser parser = new EventFileParser(result.events::add);
+        parser.parse(buffer, firstLineNumber);
+        result.errors = parser.getErrors();
+        return result;
+    }
+
+    private static boolean isBlankLine(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Line count and name/details pairing state of one chunk.
+     */
+    private static class ChunkScan {
+        private int lines;
+        private long firstLineLength;
+        // Whether the chunk ends right after a name line, when entered between records
+        private boolean pendingFromIdle;
+        // The same, when entered right after a name line whose details are the chunk's first line
+        private boolean pendingFromPending;
+    }
+
+    /**
+     * Events and errors parsed from one chunk.
+     */
+    private static class ChunkResult {
+        private List<Event> events = new ArrayList<>();
+        private List<String> errors;
+    }
+}
@@ -1,6 +1,8 @@
 /**
 *Manages a calendar with one-time and recurring events. Events can be loaded from a file,
 *added, removed, and retrieved based on specific dates.
+*The calendar is safe to share between threads: changes are serialized on one lock, while
+*reads go through concurrent indexes of immutable buckets and never wait for a writer.
 * CS151 Hw1 Solution
 *Instructor: Dr.Kim
 * @author: Angie Do
@@ -10,184 +12,1269 @@
 
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class MyCalendar {
-    // Declare events list variable
-    private List<Event> oneTimeEvents;
-    private List<Event> recurringEvents;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("M/d/yy");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+    // Index from each date to the one-time events on it. Buckets are immutable and replaced on change.
+    private ConcurrentNavigableMap<LocalDate, List<Event>> eventsByDate;
+    // Index from start date to the recurring events starting on it
+    private ConcurrentNavigableMap<LocalDate, List<Event>> recurringByStartDate;
+    // Recurring events by weekday and span class (see SpanClasses), then by start date.
+    // An event is listed under each of its weekdays.
+    private List<ConcurrentNavigableMap<LocalDate, List<Event>>> recurringBySpan;
+    // Every event by its id, and by its name in the order added
+    private ConcurrentMap<Long, Event> eventsById;
+    private ConcurrentMap<String, List<Event>> eventsByName;
+    // Interval indexes of recently queried days, checked against the current buckets on every read.
+    // Access-ordered, so the least recently used day is dropped first; guarded by itself.
+    private LinkedHashMap<LocalDate, CachedDay> dayIndexCache;
+    private static final int DAY_INDEX_CACHE_SIZE = 4096;
+    // Days of each recently viewed month with a recurring event, for month and year views
+    private OccurrenceCache occurrenceCache;
+    private static final int OCCURRENCE_CACHE_SIZE = 240;
+    // Latency and volume of the hot operations, shared with the rest of the program
+    private static final CalendarMetrics METRICS = CalendarMetrics.getInstance();
+
+    // Writers take this lock; readers never do
+    private final Object writeLock = new Object();
+    // Bumped on every change, and on every change to a recurring event
+    private volatile long modCount;
+    private volatile long recurringGeneration;
+    // Immutable lists handed out by getAllOneTimeEvents and getAllRecurringEvents until the next change
+    private volatile EventsView oneTimeView;
+    private volatile EventsView recurringView;
+    // Receives a record of every change once attached; null while loading or when nothing is journaled
+    private volatile CalendarJournal journal;
 
     /**
      * Initializes a new {@code MyCalendar} with empty lists for one-time and recurring events.
      */
     public MyCalendar() {
-        this.oneTimeEvents = new ArrayList<>();
-        this.recurringEvents = new ArrayList<>();
+        this.eventsByDate = new ConcurrentSkipListMap<>();
+        this.recurringByStartDate = new ConcurrentSkipListMap<>();
+        this.recurringBySpan = newSpanIndex();
+        this.eventsById = new ConcurrentHashMap<>();
+        this.eventsByName = new ConcurrentHashMap<>();
+        this.dayIndexCache = new LinkedHashMap<LocalDate, CachedDay>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, CachedDay> eldest) {
+                return size() > DAY_INDEX_CACHE_SIZE;
+            }
+        };
+        this.occurrenceCache = new OccurrenceCache(OCCURRENCE_CACHE_SIZE);
     }
 
     /**
      * Loads events from a  file.
+     * Malformed records are skipped and reported with their line number.
      * @param filename the name of the file containing event data
      * @throws IOException if an I/O error occurs while reading the file
      */
     public void loadEvents(String filename) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(filename));
-        String line;
+        long start = METRICS.start();
+        List<Event> events = new ArrayList<>();
+        EventFileParser parser = new EventFileParser(events::add);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            parser.parse(channel);
+        }
+        addLoaded(events);
+        METRICS.stop(CalendarMetrics.Operation.LOAD, start);
+        METRICS.recordLoad(events.size(), parser.getErrors().size());
+        reportLoadErrors(parser.getErrors());
+    }
 
-        while ((line = reader.readLine()) != null) {
-            String eventName = line.trim();
-            line = reader.readLine().trim();
+    /**
+     * Loads events from a very large file by memory-mapping it and parsing chunks of it in parallel.
+     * Events are added in file order, exactly as {@link #loadEvents(String)} would add them.
+     * @param filename the name of the file containing event data
+     * @throws IOException if an I/O error occurs while reading the file
+     */
+    public void loadEventsMapped(String filename) throws IOException {
+        long start = METRICS.start();
+        List<Event> events = new ArrayList<>();
+        MappedEventLoader loader = new MappedEventLoader();
+        loader.load(filename, events::add);
+        addLoaded(events);
+        METRICS.stop(CalendarMetrics.Operation.LOAD, start);
+        METRICS.recordLoad(events.size(), loader.getErrors().size());
+        reportLoadErrors(loader.getErrors());
+    }
 
-            if (isRecurringEvent(line)) {
-                // Recurring event
-                processRecurringEvent(eventName, line);
-            } else {
-                // One-time event
-                processOneTimeEvent(eventName, line);
-            }
-        }
+    /**
+     * Saves all events to a binary snapshot file that {@link #loadSnapshot(String)} reads back.
+     * @param filename the name of the snapshot file
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public void saveSnapshot(String filename) throws IOException {
+        CalendarSnapshot.write(filename, getAllOneTimeEvents(), getAllRecurringEvents());
+    }
 
-        reader.close();
-        System.out.println("Loading is done!");
+    /**
+     * Loads events from a binary snapshot file written by {@link #saveSnapshot(String)}.
+     * @param filename the name of the snapshot file
+     * @throws IOException if an I/O error occurs, or the file is not a supported snapshot
+     */
+    public void loadSnapshot(String filename) throws IOException {
+        long start = METRICS.start();
+        List<Event> events = new ArrayList<>();
+        CalendarSnapshot.read(filename, events::add);
+        addLoaded(events);
+        METRICS.stop(CalendarMetrics.Operation.LOAD, start);
+        METRICS.recordLoad(events.size(), 0);
     }
 
     /**
-     * Process and add the event to recurring event if they are 
-     * @param name the name of the recurring event
-     * @param line the line containing event details
+     * Loads events from an iCalendar (.ics) file, reading it one content line at a time.
+     * Events that cannot be represented are skipped and reported with their line number.
+     * @param filename the name of the .ics file
+     * @throws IOException if an I/O error occurs while reading the file
      */
-    private void processRecurringEvent(String name, String line) {
-        String[] parts = line.split(" ");
-        String days = parts[0]; // Days of the week (e.g., TR)
-        LocalTime startTime = LocalTime.parse(parts[1], TIME_FORMATTER);
-        LocalTime endTime = LocalTime.parse(parts[2], TIME_FORMATTER);
-        LocalDate startDate = LocalDate.parse(parts[3], DATE_FORMATTER);
-        LocalDate endDate = LocalDate.parse(parts[4], DATE_FORMATTER);
+    public void loadICalendar(String filename) throws IOException {
+        long start = METRICS.start();
+        List<Event> events = new ArrayList<>();
+        ICalendarReader reader = new ICalendarReader(events::add);
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+            reader.parse(in);
+        }
+        addLoaded(events);
+        METRICS.stop(CalendarMetrics.Operation.LOAD, start);
+        METRICS.recordLoad(events.size(), reader.getErrors().size());
+        for (String warning : reader.getWarnings()) {
+            System.out.println("Note: " + warning);
+        }
+        reportLoadErrors(reader.getErrors());
+    }
 
-        List<LocalDate> recurrenceDates = calculateRecurrenceDates(days, startDate, endDate);
+    /**
+     * Exports every event to an iCalendar (.ics) file, recurring events as weekly rules.
+     * One-time events are written straight from the date index, day by day.
+     * @param filename the name of the .ics file
+     * @return the number of events written
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public int exportICalendar(String filename) throws IOException {
+        try (ICalendarWriter writer = new ICalendarWriter(Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8))) {
+            for (List<Event> bucket : eventsByDate.values()) {
+                for (Event event : bucket) {
+                    writer.writeEvent(event);
+                }
+            }
+            for (Event event : getAllRecurringEvents()) {
+                writer.writeEvent(event);
+            }
+            return writer.getEventCount();
+        }
+    }
 
-        TimeInterval timeInterval = new TimeInterval(startTime, endTime);
-        Event event = new Event(name, timeInterval, startDate, true, recurrenceDates);
-        recurringEvents.add(event);
+    /**
+     * Exports every occurrence in a date range to an iCalendar (.ics) file, one event per occurrence.
+     * Occurrences are streamed from {@link #occurrences} as they are written, so nothing is collected.
+     * @param filename the name of the .ics file
+     * @param from     the first day of the range
+     * @param to       the last day of the range
+     * @return the number of occurrences written
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    public int exportICalendar(String filename, LocalDate from, LocalDate to) throws IOException {
+        try (ICalendarWriter writer = new ICalendarWriter(Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8))) {
+            Iterator<Occurrence> occurrences = new OccurrenceIterator(from, to, true);
+            while (occurrences.hasNext()) {
+                writer.writeOccurrence(occurrences.next());
+            }
+            return writer.getEventCount();
+        }
     }
 
     /**
-     * Process and add the evnt to one-time event if they are
-     * @param name the name of the one-time event
-     * @param line the line containing event details
+     * Prints the records skipped while loading and the end of loading message.
+     * @param errors the error messages, each starting with the line number
      */
-    private void processOneTimeEvent(String name, String line) {
-        String[] parts = line.split(" ");
-        LocalDate date = LocalDate.parse(parts[0], DATE_FORMATTER);
-        LocalTime startTime = LocalTime.parse(parts[1], TIME_FORMATTER);
-        LocalTime endTime = LocalTime.parse(parts[2], TIME_FORMATTER);
+    private void reportLoadErrors(List<String> errors) {
+        for (String error : errors) {
+            System.out.println("Skipped " + error);
+        }
+        System.out.println("Loading is done!");
+    }
 
-        TimeInterval timeInterval = new TimeInterval(startTime, endTime);
-        Event event = new Event(name, timeInterval, date, false, null);
-        oneTimeEvents.add(event);
+    /**
+     * Process and add an event to the calendar.
+     * Adding an event that is already in the calendar has no effect.
+     * @param event the {@code Event} to be added
+     */
+    public void add(Event event) {
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            linkAll(Collections.singletonList(event));
+        }
+        METRICS.stop(CalendarMetrics.Operation.ADD, start);
+    }
+
+    /**
+     * Adds loaded events in their original order, replacing each touched bucket once
+     * instead of once per event.
+     * @param events the events to add
+     */
+    private void addLoaded(List<Event> events) {
+        synchronized (writeLock) {
+            linkAll(events);
+        }
     }
 
     /**
-     * Check if there is an recurring event.
-     * @param line the line of text to check
-     * @return {@code true} if the line matches the format for recurring events, {@code false} otherwise
+     * Adds an event only if it does not overlap any event already in the calendar.
+     * The check and the add happen atomically with respect to other changes.
+     * A recurring event is checked against the indexes directly rather than through the
+     * interval index of each of its days, which would crowd the cache of day indexes.
+     * @param event the {@code Event} to be added
+     * @return {@code true} if the event was added, {@code false} if it conflicts
      */
-    private boolean isRecurringEvent(String line) {
-        return line.matches("[SMTWRFA]+ .*");
+    public boolean addIfNoConflict(Event event) {
+        synchronized (writeLock) {
+            boolean conflict = event.isRecurring()
+                    ? hasRecurringConflict(event)
+                    : hasConflict(event.getDate(), event.getTimeInterval());
+            if (conflict) {
+                return false;
+            }
+            add(event);
+            return true;
+        }
     }
 
     /**
-     * Calculates recurrence dates based on specified days of the week and date range.
-     * @param days the days of the week when the event recurs (S, M, T, W, R, F, A)
-     * @param startDate the start date of the recurrence period
-     * @param endDate the end date of the recurrence period
-     * @return a list of {@code LocalDate} instances representing the recurrence dates
+     * Checks if any occurrence of a recurring event overlaps an event of the calendar: a one-time
+     * event on a day the rule matches, found through the date index, or a recurring event with a
+     * weekday in common that occurs on that weekday inside both ranges, found through the span index.
+     * @param event the recurring {@code Event}
+     * @return {@code true} if some occurrence conflicts
      */
-    private List<LocalDate> calculateRecurrenceDates(String days, LocalDate startDate, LocalDate endDate) {
-        List<LocalDate> dates = new ArrayList<>();
-        LocalDate currentDate = startDate;
+    private boolean hasRecurringConflict(Event event) {
+        TimeInterval interval = event.getTimeInterval();
+        for (Map.Entry<LocalDate, List<Event>> entry
+                : eventsByDate.subMap(event.getStartDate(), true, event.getEndDate(), true).entrySet()) {
+            if ((event.getDayMask() & Event.dayBit(entry.getKey())) != 0) {
+                for (Event other : entry.getValue()) {
+                    if (other.getTimeInterval().overlaps(interval)) {
+                        return true;
+                    }
+                }
+            }
+        }
 
-        while (!currentDate.isAfter(endDate)) {
-            if (days.contains(currentDate.getDayOfWeek().toString().substring(0, 1))) {
-                dates.add(currentDate);
+        boolean[] conflict = new boolean[1];
+        for (int day = 0; day < 7 && !conflict[0]; day++) {
+            if ((event.getDayMask() & (1 << day)) == 0) {
+                continue;
             }
-            currentDate = currentDate.plusDays(1); // Move to the next day
+            int weekday = day;
+            forEachRecurringOverlapping(day, event.getStartDate(), event.getEndDate(), other -> {
+                if (!conflict[0] && other.getTimeInterval().overlaps(interval)) {
+                    // The two ranges overlap; check that the weekday falls inside the overlap
+                    LocalDate from = other.getStartDate().isAfter(event.getStartDate()) ? other.getStartDate() : event.getStartDate();
+                    LocalDate to = other.getEndDate().isBefore(event.getEndDate()) ? other.getEndDate() : event.getEndDate();
+                    int offset = Math.floorMod(weekday - (from.getDayOfWeek().getValue() - 1), 7);
+                    conflict[0] = !from.plusDays(offset).isAfter(to);
+                }
+            });
         }
-        return dates;
+        return conflict[0];
     }
 
     /**
-     * Process and add an event to the calendar.
-     * @param event the {@code Event} to be added
+     * Adds a batch of one-time events, checking each against the calendar and against the events
+     * of the batch before it. The batch is sorted by date and start time and swept day by day
+     * in one merge pass over the day's busy intervals, so the cost is O(n log n) for the sort
+     * plus one lookup per distinct day, instead of one conflict check per pair of events.
+     * Overlap follows {@link TimeInterval#overlaps(TimeInterval)}; of two overlapping batch events,
+     * the one that starts first (then ends first) is kept. The check and the add happen
+     * atomically with respect to other changes.
+     * @param events the events to add
+     * @param policy what to do with conflicting events
+     * @return one result per event, in the order of {@code events}
+     * @throws IllegalArgumentException if an event is recurring
      */
-    public void add(Event event) {
-        if (event.isRecurring()) {
-            recurringEvents.add(event);
-        } else {
-            oneTimeEvents.add(event);
+    public List<AddResult> addAll(Collection<Event> events, ConflictPolicy policy) {
+        Event[] batch = events.toArray(new Event[0]);
+        Pending[] order = new Pending[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i].isRecurring()) {
+                throw new IllegalArgumentException("Batches may only hold one-time events: " + batch[i]);
+            }
+            order[i] = new Pending(batch[i], i);
+        }
+        Arrays.sort(order);
+
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            Event[] conflicts = new Event[batch.length];
+            boolean[] skipped = new boolean[batch.length];
+            Set<Event> seen = new HashSet<>();
+            boolean anyConflict = false;
+
+            int first = 0;
+            while (first < order.length) {
+                // The events of one day, [first, end) in order
+                LocalDate date = order[first].event.getDate();
+                int end = first;
+                while (end < order.length && order[end].day == order[first].day) {
+                    end++;
+                }
+
+                long[] busy = getBusy(date);
+                int pos = 0;
+                // Latest end among the events of the batch kept so far on this day, and its event
+                long batchEnd = -1;
+                Event batchLast = null;
+                List<Event> kept = new ArrayList<>();
+                for (int k = first; k < end; k++) {
+                    int i = order[k].index;
+                    Event event = order[k].event;
+                    if (eventsById.get(event.getId()) == event || !seen.add(event)) {
+                        skipped[i] = true;
+                        continue;
+                    }
+                    long from = order[k].start;
+                    long to = order[k].end;
+
+                    // Starts only grow, so busy intervals ending by this start are passed for good
+                    while (pos < busy.length && busy[pos + 1] <= from) {
+                        pos += 2;
+                    }
+                    Event conflict = null;
+                    if (from == to) {
+                        // An empty interval only conflicts with events strictly around it,
+                        // which the merged busy time cannot tell apart from touching ones
+                        conflict = getDayIndex(date).findFirstConflict(event.getTimeInterval());
+                        for (int j = 0; conflict == null && j < kept.size(); j++) {
+                            if (kept.get(j).getTimeInterval().overlaps(event.getTimeInterval())) {
+                                conflict = kept.get(j);
+                            }
+                        }
+                    } else if (pos < busy.length && busy[pos] < to) {
+                        conflict = getDayIndex(date).findFirstConflict(event.getTimeInterval());
+                    } else if (batchEnd > from) {
+                        conflict = batchLast;
+                    }
+
+                    conflicts[i] = conflict;
+                    anyConflict |= conflict != null;
+                    if (conflict == null || policy == ConflictPolicy.ALLOW) {
+                        kept.add(event);
+                        if (to > batchEnd) {
+                            batchEnd = to;
+                            batchLast = event;
+                        }
+                    }
+                }
+                first = end;
+            }
+
+            boolean addNone = anyConflict && policy == ConflictPolicy.ALL_OR_NOTHING;
+            List<Event> added = new ArrayList<>();
+            List<AddResult> results = new ArrayList<>(batch.length);
+            for (int i = 0; i < batch.length; i++) {
+                boolean add = !skipped[i] && !addNone && (conflicts[i] == null || policy == ConflictPolicy.ALLOW);
+                if (add) {
+                    added.add(batch[i]);
+                }
+                results.add(new AddResult(batch[i], add, conflicts[i]));
+            }
+            if (!added.isEmpty()) {
+                linkAll(added);
+            }
+            METRICS.stop(CalendarMetrics.Operation.ADD_ALL, start);
+            return results;
         }
     }
 
     /**
      * Delete an event from thelist
+     * Deleting a recurring event deletes every recurring event with the same name.
      * @param event the {@code Event} to be deleted
      */
     public void remove(Event event) {
         if (event.isRecurring()) {
-            recurringEvents.removeIf(e -> e.getName().equals(event.getName()));
+            removeRecurringByName(event.getName());
+        } else {
+            removeById(event.getId());
+        }
+    }
+
+    /**
+     * Deletes the event with the given id.
+     * @param id the id of the event, as returned by {@link Event#getId()}
+     * @return {@code true} if an event was deleted, {@code false} if there is no event with that id
+     */
+    public boolean removeById(long id) {
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            Event event = eventsById.get(id);
+            if (event != null) {
+                unlinkAll(Collections.singletonList(event));
+            }
+            METRICS.stop(CalendarMetrics.Operation.REMOVE, start);
+            return event != null;
+        }
+    }
+
+    /**
+     * Deletes every recurring event with the given name, using the name index.
+     * @param name the name of the recurring events
+     * @return the number of events deleted
+     */
+    public int removeRecurringByName(String name) {
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            List<Event> matches = new ArrayList<>();
+            for (Event e : getEventsByName(name)) {
+                if (e.isRecurring()) {
+                    matches.add(e);
+                }
+            }
+            unlinkAll(matches);
+            METRICS.stop(CalendarMetrics.Operation.REMOVE, start);
+            return matches.size();
+        }
+    }
+
+    /**
+     * Deletes every one-time event on the given date by dropping the date's bucket.
+     * @param date the date
+     * @return the number of events deleted
+     */
+    public int removeOneTimeEventsOn(LocalDate date) {
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            List<Event> bucket = eventsByDate.get(date);
+            if (bucket != null) {
+                unlinkAll(bucket);
+            }
+            METRICS.stop(CalendarMetrics.Operation.REMOVE, start);
+            return bucket == null ? 0 : bucket.size();
+        }
+    }
+
+    /**
+     * Deletes many events at once; each touched bucket is rewritten once.
+     * Events that are not in the calendar, and repeats, are ignored.
+     * @param events the events to delete
+     * @return the number of events deleted
+     */
+    public int removeAll(Collection<Event> events) {
+        long start = METRICS.start();
+        synchronized (writeLock) {
+            Set<Event> seen = new HashSet<>();
+            List<Event> present = new ArrayList<>();
+            for (Event e : events) {
+                if (eventsById.get(e.getId()) == e && seen.add(e)) {
+                    present.add(e);
+                }
+            }
+            unlinkAll(present);
+            METRICS.stop(CalendarMetrics.Operation.REMOVE, start);
+            return present.size();
+        }
+    }
+
+    /**
+     * Returns the event with the given id.
+     * @param id the id of the event
+     * @return the event, or {@code null} if there is no event with that id
+     */
+    public Event getEvent(long id) {
+        return eventsById.get(id);
+    }
+
+    /**
+     * Returns the events with the given name, one-time and recurring, in the order they were added.
+     * @param name the name of the events
+     * @return an immutable list of the events, empty if there are none
+     */
+    public List<Event> getEventsByName(String name) {
+        List<Event> bucket = eventsByName.get(name);
+        return bucket == null ? Collections.emptyList() : bucket;
+    }
+
+    /**
+     * Returns a counter that changes whenever an event is added or removed, so data derived
+     * from the calendar can tell when it is stale.
+     * @return the modification count
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Starts journaling every change of the calendar. Called by {@link CalendarJournal#recover}
+     * once the calendar has been rebuilt.
+     * @param journal the journal to append to
+     */
+    void attachJournal(CalendarJournal journal) {
+        synchronized (writeLock) {
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Folds the journal into a new snapshot. The calendar is cut and the journal switched to a new
+     * file under the write lock; the snapshot itself is written on a background thread.
+     * Compaction also starts by itself once enough changes were journaled.
+     * @return a future completed when the new snapshot is in place
+     * @throws IOException if the journal cannot be switched to a new file
+     */
+    public CompletableFuture<Void> compactJournal() throws IOException {
+        synchronized (writeLock) {
+            CalendarJournal log = journal;
+            if (log == null) {
+                throw new IllegalStateException("No journal is attached");
+            }
+            long generation = log.rotate();
+            return log.compactInBackground(generation, getAllOneTimeEvents(), getAllRecurringEvents());
+        }
+    }
+
+    /**
+     * Starts a compaction from inside a change, with the write lock held.
+     * A failure goes to the journal's compaction failure handler, and the journal keeps growing
+     * until the next attempt.
+     */
+    private void startCompaction(CalendarJournal log) {
+        try {
+            long generation = log.rotate();
+            log.compactInBackground(generation, getAllOneTimeEvents(), getAllRecurringEvents());
+        } catch (IOException e) {
+            log.reportCompactionFailure(e);
+        }
+    }
+
+    /**
+     * Adds events to every index, grouping them so each touched bucket is replaced once.
+     * Must be called with the write lock held.
+     * @param events the events to add; events already in the calendar are skipped
+     */
+    private void linkAll(List<Event> events) {
+        Map<LocalDate, List<Event>> byDate = new LinkedHashMap<>();
+        Map<LocalDate, List<Event>> byStartDate = new LinkedHashMap<>();
+        Map<Integer, Map<LocalDate, List<Event>>> bySpan = new HashMap<>();
+        Map<String, List<Event>> byName = new LinkedHashMap<>();
+        CalendarJournal log = journal;
+        if (log != null) {
+            log.ensureWritable();
+            log.ensureStorable(events);
+        }
+        for (Event event : events) {
+            if (eventsById.putIfAbsent(event.getId(), event) != null) {
+                continue;
+            }
+            if (log != null) {
+                log.logAdd(event);
+            }
+            byName.computeIfAbsent(event.getName(), n -> new ArrayList<>()).add(event);
+            if (event.isRecurring()) {
+                byStartDate.computeIfAbsent(event.getStartDate(), d -> new ArrayList<>()).add(event);
+                for (int day = 0; day < 7; day++) {
+                    if ((event.getDayMask() & (1 << day)) != 0) {
+                        bySpan.computeIfAbsent(spanSlot(day, event), k -> new LinkedHashMap<>())
+                                .computeIfAbsent(event.getStartDate(), d -> new ArrayList<>()).add(event);
+                    }
+                }
+            } else {
+                byDate.computeIfAbsent(event.getDate(), d -> new ArrayList<>()).add(event);
+            }
+        }
+
+        appendAll(eventsByDate, byDate, Event.TIME_ORDER);
+        appendAll(recurringByStartDate, byStartDate, Event.TIME_ORDER);
+        for (Map.Entry<Integer, Map<LocalDate, List<Event>>> slot : bySpan.entrySet()) {
+            appendAll(recurringBySpan.get(slot.getKey()), slot.getValue(), null);
+        }
+        appendAll(eventsByName, byName, null);
+        if (!byStartDate.isEmpty()) {
+            recurringGeneration++;
+            occurrenceCache.clear();
+        }
+        modCount++;
+        if (log != null && log.isCompactionDue()) {
+            startCompaction(log);
+        }
+    }
+
+    /**
+     * Removes events from every index, grouping them so each touched bucket is replaced once.
+     * Must be called with the write lock held.
+     * @param events the events to remove, all currently in the calendar
+     */
+    private void unlinkAll(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<LocalDate, Set<Event>> byDate = new HashMap<>();
+        Map<LocalDate, Set<Event>> byStartDate = new HashMap<>();
+        Map<Integer, Map<LocalDate, Set<Event>>> bySpan = new HashMap<>();
+        Map<String, Set<Event>> byName = new HashMap<>();
+        CalendarJournal log = journal;
+        if (log != null) {
+            log.ensureWritable();
+        }
+        for (Event event : events) {
+            eventsById.remove(event.getId());
+            if (log != null) {
+                log.logRemove(event);
+            }
+            byName.computeIfAbsent(event.getName(), n -> new HashSet<>()).add(event);
+            if (event.isRecurring()) {
+                byStartDate.computeIfAbsent(event.getStartDate(), d -> new HashSet<>()).add(event);
+                for (int day = 0; day < 7; day++) {
+                    if ((event.getDayMask() & (1 << day)) != 0) {
+                        bySpan.computeIfAbsent(spanSlot(day, event), k -> new HashMap<>())
+                                .computeIfAbsent(event.getStartDate(), d -> new HashSet<>()).add(event);
+                    }
+                }
+            } else {
+                byDate.computeIfAbsent(event.getDate(), d -> new HashSet<>()).add(event);
+            }
+        }
+
+        removeAll(eventsByDate, byDate);
+        removeAll(recurringByStartDate, byStartDate);
+        for (Map.Entry<Integer, Map<LocalDate, Set<Event>>> slot : bySpan.entrySet()) {
+            removeAll(recurringBySpan.get(slot.getKey()), slot.getValue());
+        }
+        removeAll(eventsByName, byName);
+        if (!byStartDate.isEmpty()) {
+            recurringGeneration++;
+            occurrenceCache.clear();
+        }
+        modCount++;
+        if (log != null && log.isCompactionDue()) {
+            startCompaction(log);
+        }
+    }
+
+    /**
+     * Adds groups of events to the matching buckets of an index, one bucket copy per group.
+     * With an order, buckets are kept sorted: the group is sorted and merged into the bucket.
+     * Without one, the group is appended.
+     */
+    private static <K> void appendAll(Map<K, List<Event>> index, Map<K, List<Event>> groups, Comparator<Event> order) {
+        for (Map.Entry<K, List<Event>> group : groups.entrySet()) {
+            List<Event> bucket = index.get(group.getKey());
+            List<Event> added = group.getValue();
+            List<Event> copy = new ArrayList<>((bucket == null ? 0 : bucket.size()) + added.size());
+            if (order == null) {
+                if (bucket != null) {
+                    copy.addAll(bucket);
+                }
+                copy.addAll(added);
+            } else {
+                added.sort(order);
+                List<Event> existing = bucket == null ? Collections.emptyList() : bucket;
+                int i = 0;
+                int j = 0;
+                while (i < existing.size() || j < added.size()) {
+                    if (j >= added.size() || (i < existing.size() && order.compare(existing.get(i), added.get(j)) <= 0)) {
+                        copy.add(existing.get(i++));
+                    } else {
+                        copy.add(added.get(j++));
+                    }
+                }
+            }
+            index.put(group.getKey(), Collections.unmodifiableList(copy));
+        }
+    }
+
+    /**
+     * Removes groups of events from the matching buckets of an index, one bucket copy per group.
+     */
+    private static <K> void removeAll(Map<K, List<Event>> index, Map<K, Set<Event>> groups) {
+        for (Map.Entry<K, Set<Event>> group : groups.entrySet()) {
+            List<Event> bucket = index.get(group.getKey());
+            if (bucket == null) {
+                continue;
+            }
+            List<Event> copy = new ArrayList<>(bucket.size());
+            for (Event e : bucket) {
+                if (!group.getValue().contains(e)) {
+                    copy.add(e);
+                }
+            }
+            replaceBucket(index, group.getKey(), Collections.unmodifiableList(copy));
+        }
+    }
+
+    /**
+     * Installs a new bucket for a key, dropping the key when the bucket is empty.
+     */
+    private static <K> void replaceBucket(Map<K, List<Event>> index, K key, List<Event> bucket) {
+        if (bucket.isEmpty()) {
+            index.remove(key);
         } else {
-            oneTimeEvents.remove(event);
+            index.put(key, bucket);
         }
     }
 
     /**
-     * Retrieves a list of events for a specific date.
+     * Creates the empty (weekday, span class) maps of the recurring index.
+     */
+    private static List<ConcurrentNavigableMap<LocalDate, List<Event>>> newSpanIndex() {
+        List<ConcurrentNavigableMap<LocalDate, List<Event>>> index = new ArrayList<>(7 * SpanClasses.COUNT);
+        for (int slot = 0; slot < 7 * SpanClasses.COUNT; slot++) {
+            index.add(new ConcurrentSkipListMap<>());
+        }
+        return Collections.unmodifiableList(index);
+    }
+
+    /**
+     * Returns the slot of the recurring index holding an event for one of its weekdays.
+     * @param day   the weekday mask bit, 0 for Monday through 6 for Sunday
+     * @param event the recurring {@code Event}
+     * @return the index slot
+     */
+    private static int spanSlot(int day, Event event) {
+        return SpanClasses.slot(day, event.getStartDate().toEpochDay(), event.getEndDate().toEpochDay());
+    }
+
+    /**
+     * Passes every recurring event that recurs on the given weekday and whose range overlaps [from, to]
+     * to the consumer. Each span class is searched only over the start dates that can reach {@code from},
+     * so the cost follows the number of events near the range, not the size of the calendar.
+     * @param day    the weekday mask bit, 0 for Monday through 6 for Sunday
+     * @param from   the first day of the range
+     * @param to     the last day of the range
+     * @param action the consumer receiving the events
+     */
+    private void forEachRecurringOverlapping(int day, LocalDate from, LocalDate to, Consumer<Event> action) {
+        for (int k = 0; k < SpanClasses.COUNT; k++) {
+            ConcurrentNavigableMap<LocalDate, List<Event>> spanIndex = recurringBySpan.get(day * SpanClasses.COUNT + k);
+            if (spanIndex.isEmpty()) {
+                continue;
+            }
+            LocalDate earliest = LocalDate.ofEpochDay(
+                    Math.max(LocalDate.MIN.toEpochDay(), SpanClasses.earliestStart(from.toEpochDay(), k)));
+            for (List<Event> bucket : spanIndex.subMap(earliest, true, to, true).values()) {
+                for (Event e : bucket) {
+                    if (!e.getEndDate().isBefore(from)) {
+                        action.accept(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves a list of events for a specific date, ordered by {@link Event#TIME_ORDER}.
+     * The lookup goes through the date index and the span class index of recurring events,
+     * so it does not depend on how many events the calendar holds. The sorted list is cached
+     * with the day's interval index, so repeated reads neither sort nor copy.
      * @param date the {@code LocalDate} to find events for
-     * @return a list of {@code Event} instances occurring on the specified date
+     * @return an unmodifiable list of {@code Event} instances occurring on the specified date
      */
     public List<Event> getEventsForDate(LocalDate date) {
+        long start = METRICS.start();
+        List<Event> events = getDayIndex(date).getEvents();
+        METRICS.stop(CalendarMetrics.Operation.GET_EVENTS_FOR_DATE, start);
+        return events;
+    }
+
+    /**
+     * Collects the events of a date from a given one-time bucket and the recurring index.
+     * @param date   the date
+     * @param bucket the one-time bucket of the date, or {@code null} if there is none
+     * @return the one-time events followed by the matching recurring events
+     */
+    private List<Event> eventsOn(LocalDate date, List<Event> bucket) {
         List<Event> events = new ArrayList<>();
-        
+
         // Add one-time events that match the date
-        for (Event e : oneTimeEvents) {
-            if (e.getDate().equals(date)) {
-                events.add(e);
-            }
+        if (bucket != null) {
+            events.addAll(bucket);
         }
 
-        // Add recurring events that match the date
-        for (Event e : recurringEvents) {
-            if (e.getRecurrenceDates().contains(date)) {
-                events.add(e);
+        // Add recurring events whose rule matches the date; the weekday already matches
+        forEachRecurringOverlapping(date.getDayOfWeek().getValue() - 1, date, date, events::add);
+
+        return events;
+    }
+
+    /**
+     * Streams every occurrence in a date range, one-time and recurring, ordered as {@link Occurrence}
+     * orders them. The stream is lazy: recurring events and the one-time events of a date join a k-way
+     * merge only when the merge reaches their first date, and nothing is collected up front.
+     * The stream reflects changes made while it is consumed only as far as the indexes' iterators do.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return an ordered stream of the occurrences between {@code from} and {@code to}, inclusive
+     */
+    public Stream<Occurrence> occurrences(LocalDate from, LocalDate to) {
+        return stream(new OccurrenceIterator(from, to, true));
+    }
+
+    /**
+     * Streams the one-time events in a date range in the order of {@link #occurrences}.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return an ordered stream of the one-time occurrences between {@code from} and {@code to}, inclusive
+     */
+    public Stream<Occurrence> oneTimeOccurrences(LocalDate from, LocalDate to) {
+        return stream(new OccurrenceIterator(from, to, false));
+    }
+
+    private static Stream<Occurrence> stream(Iterator<Occurrence> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Computes which days of a date range have at least one event, in a single pass over the indexes.
+     * Recurring events are expanded a month at a time through the occurrence cache, so revisiting
+     * a month reuses its expansion until the recurring events change.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return a bit set where bit i is set if the day {@code from + i} has an event
+     */
+    public BitSet getOccupancy(LocalDate from, LocalDate to) {
+        BitSet occupied = new BitSet();
+        long first = from.toEpochDay();
+
+        for (LocalDate date : eventsByDate.subMap(from, true, to, true).keySet()) {
+            occupied.set((int) (date.toEpochDay() - first));
+        }
+
+        // Recurring events a month at a time, each month's days expanded once per generation
+        long generation = recurringGeneration;
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            LocalDate monthStart = month.atDay(1).isBefore(from) ? from : month.atDay(1);
+            LocalDate monthEnd = month.atEndOfMonth().isAfter(to) ? to : month.atEndOfMonth();
+            // Bit of the range for day 1 of the month, and the days of the month inside the range
+            int base = (int) (month.atDay(1).toEpochDay() - first);
+            int inRange = (int) ((1L << monthEnd.getDayOfMonth()) - (1L << (monthStart.getDayOfMonth() - 1)));
+
+            int days = occurrenceCache.getMonthMask(month, generation, this::expandRecurring) & inRange;
+            for (int d = Integer.numberOfTrailingZeros(days); d < 32; d = Integer.numberOfTrailingZeros(days)) {
+                occupied.set(base + d);
+                days &= days - 1;
             }
         }
+        return occupied;
+    }
 
-        return events;
+    /**
+     * Finds the days of a month at least one recurring event occurs on, walking each weekday
+     * of each recurring event a week at a time.
+     * @param month the month
+     * @return a mask where bit {@code d - 1} is set if a recurring event occurs on day {@code d} of the month
+     */
+    private int expandRecurring(YearMonth month) {
+        long first = month.atDay(1).toEpochDay();
+        long last = month.atEndOfMonth().toEpochDay();
+        int[] mask = new int[1];
+        for (int day = 0; day < 7; day++) {
+            int weekday = day;
+            forEachRecurringOverlapping(day, month.atDay(1), month.atEndOfMonth(), e -> {
+                long start = Math.max(first, e.getStartDate().toEpochDay());
+                long end = Math.min(last, e.getEndDate().toEpochDay());
+                // Epoch day 0 was a Thursday, mask bit 3
+                long offset = Math.floorMod(weekday - (start + 3), 7);
+                for (long epochDay = start + offset; epochDay <= end; epochDay += 7) {
+                    mask[0] |= 1 << (epochDay - first);
+                }
+            });
+        }
+        return mask[0];
+    }
+
+    /**
+     * Returns the number of entries in each index and cache, for monitoring.
+     * @return the sizes by index name, in a fixed order
+     */
+    public Map<String, Integer> getIndexSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("events", eventsById.size());
+        sizes.put("names", eventsByName.size());
+        sizes.put("one-time dates", eventsByDate.size());
+        sizes.put("recurring start dates", recurringByStartDate.size());
+        synchronized (dayIndexCache) {
+            sizes.put("cached days", dayIndexCache.size());
+        }
+        sizes.put("cached months", occurrenceCache.size());
+        return sizes;
+    }
+
+    /**
+     * Returns the cache of recurring events expanded by month, with its hit and miss counts.
+     * @return the occurrence cache of this calendar
+     */
+    public OccurrenceCache getOccurrenceCache() {
+        return occurrenceCache;
+    }
+
+    /**
+     * Checks if any event on the given date overlaps a time interval.
+     * Uses the interval index of the day, which is built once and reused until the day changes.
+     * @param date     the date to check
+     * @param interval the time interval to check
+     * @return {@code true} if an event on that date overlaps the interval, {@code false} otherwise
+     */
+    public boolean hasConflict(LocalDate date, TimeInterval interval) {
+        long start = METRICS.start();
+        boolean conflict = getDayIndex(date).hasConflict(interval);
+        METRICS.stop(CalendarMetrics.Operation.CONFLICT_CHECK, start);
+        return conflict;
+    }
+
+    /**
+     * Finds the events on the given date that overlap a time interval, ordered by start time.
+     * Costs O(log n) per event found once the interval index of the day is built.
+     * @param date     the date to check
+     * @param interval the time interval to check
+     * @return the events overlapping the interval
+     */
+    public List<Event> findConflicts(LocalDate date, TimeInterval interval) {
+        long start = METRICS.start();
+        List<Event> conflicts = getDayIndex(date).findConflicts(interval);
+        METRICS.stop(CalendarMetrics.Operation.CONFLICT_CHECK, start);
+        return conflicts;
+    }
+
+    /**
+     * Returns the merged busy intervals of a date, as built by {@link DayIntervalIndex#getBusy()}.
+     * The array is cached with the date's interval index until the date changes.
+     * @param date the date
+     * @return the busy intervals as start, end pairs in nanoseconds of day; must not be changed
+     */
+    long[] getBusy(LocalDate date) {
+        return getDayIndex(date).getBusy();
+    }
+
+    /**
+     * Returns the interval index of a day, building it if the cached one is missing or out of date.
+     * A cached index is current when it was built from the day's present one-time bucket
+     * and no recurring event has changed since.
+     * @param date the date
+     * @return the interval index over the events of that date
+     */
+    private DayIntervalIndex getDayIndex(LocalDate date) {
+        long generation = recurringGeneration;
+        List<Event> bucket = eventsByDate.get(date);
+        CachedDay cached;
+        synchronized (dayIndexCache) {
+            cached = dayIndexCache.get(date);
+        }
+        if (cached != null && cached.bucket == bucket && cached.generation == generation) {
+            return cached.index;
+        }
+
+        // Built outside the lock; a concurrent reader of the same day may build it too
+        DayIntervalIndex index = new DayIntervalIndex(eventsOn(date, bucket));
+        synchronized (dayIndexCache) {
+            dayIndexCache.put(date, new CachedDay(bucket, generation, index));
+        }
+        return index;
     }
 
     /**
-     * Returns a list of all one-time events in the calendar.
+     * Returns a list of all one-time events in the calendar, ordered by date and then by {@link Event#TIME_ORDER}.
+     * The list is immutable and shared by all callers until the calendar changes.
      * @return a list of  one-time events
      */
     public List<Event> getAllOneTimeEvents() {
-        return new ArrayList<>(oneTimeEvents);
+        EventsView view = oneTimeView;
+        long version = modCount;
+        if (view == null || view.version != version) {
+            view = new EventsView(version, flatten(eventsByDate));
+            oneTimeView = view;
+        }
+        return view.events;
     }
 
     /**
-     * Returns a list of all recurring events in the calendar.
+     * Returns a list of all recurring events in the calendar, ordered by start date and then by {@link Event#TIME_ORDER}.
+     * The list is immutable and shared by all callers until the calendar changes.
      * 
      * @return a list of recurring events
      */
     public List<Event> getAllRecurringEvents() {
-        return new ArrayList<>(recurringEvents);
+        EventsView view = recurringView;
+        long version = modCount;
+        if (view == null || view.version != version) {
+            view = new EventsView(version, flatten(recurringByStartDate));
+            recurringView = view;
+        }
+        return view.events;
+    }
+
+    /**
+     * Concatenates the buckets of an index into one immutable list.
+     */
+    private static List<Event> flatten(Map<LocalDate, List<Event>> index) {
+        List<Event> events = new ArrayList<>();
+        for (List<Event> bucket : index.values()) {
+            events.addAll(bucket);
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * K-way merge of the occurrences in a date range. The heap holds one cursor per event whose next
+     * occurrence is pending; the one-time buckets and the recurring events starting inside the range
+     * are read in date order and admitted once the merge reaches their date.
+     */
+    private class OccurrenceIterator implements Iterator<Occurrence> {
+        private final PriorityQueue<Cursor> heap = new PriorityQueue<>();
+        private final Iterator<Map.Entry<LocalDate, List<Event>>> oneTimeDays;
+        private final Iterator<Map.Entry<LocalDate, List<Event>>> recurringStarts;
+        private Map.Entry<LocalDate, List<Event>> nextOneTimeDay;
+        private Map.Entry<LocalDate, List<Event>> nextRecurringStart;
+        private final LocalDate from;
+        private final LocalDate to;
+
+        private OccurrenceIterator(LocalDate from, LocalDate to, boolean withRecurring) {
+            this.from = from;
+            this.to = to;
+            boolean empty = from.isAfter(to);
+            this.oneTimeDays = empty
+                    ? Collections.emptyIterator()
+                    : eventsByDate.subMap(from, true, to, true).entrySet().iterator();
+            this.recurringStarts = empty || !withRecurring
+                    ? Collections.emptyIterator()
+                    : recurringByStartDate.subMap(from, false, to, true).entrySet().iterator();
+            this.nextOneTimeDay = oneTimeDays.hasNext() ? oneTimeDays.next() : null;
+            this.nextRecurringStart = recurringStarts.hasNext() ? recurringStarts.next() : null;
+
+            if (!empty && withRecurring) {
+                // Recurring events that started on or before the first day and are still running
+                Set<Event> running = new HashSet<>();
+                for (int day = 0; day < 7; day++) {
+                    forEachRecurringOverlapping(day, from, from, running::add);
+                }
+                for (Event event : running) {
+                    admit(event);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            admitPending();
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public Occurrence next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Cursor cursor = heap.poll();
+            Occurrence current = cursor.current;
+            if (cursor.dates.hasNext()) {
+                cursor.current = new Occurrence(cursor.dates.next(), current.getEvent());
+                heap.add(cursor);
+            }
+            return current;
+        }
+
+        /**
+         * Admits every source whose first date is not after the earliest date in the heap,
+         * so the heap top is the earliest occurrence left.
+         */
+        private void admitPending() {
+            while (true) {
+                LocalDate next = earliest(nextOneTimeDay, nextRecurringStart);
+                if (next == null || (!heap.isEmpty() && heap.peek().current.getDate().isBefore(next))) {
+                    return;
+                }
+                if (nextOneTimeDay != null && nextOneTimeDay.getKey().equals(next)) {
+                    for (Event event : nextOneTimeDay.getValue()) {
+                        admit(event);
+                    }
+                    nextOneTimeDay = oneTimeDays.hasNext() ? oneTimeDays.next() : null;
+                } else {
+                    for (Event event : nextRecurringStart.getValue()) {
+                        admit(event);
+                    }
+                    nextRecurringStart = recurringStarts.hasNext() ? recurringStarts.next() : null;
+                }
+            }
+        }
+
+        private void admit(Event event) {
+            Iterator<LocalDate> dates = event.occurrences(from, to);
+            if (dates.hasNext()) {
+                heap.add(new Cursor(new Occurrence(dates.next(), event), dates));
+            }
+        }
+
+        private LocalDate earliest(Map.Entry<LocalDate, List<Event>> a, Map.Entry<LocalDate, List<Event>> b) {
+            if (a == null) {
+                return b == null ? null : b.getKey();
+            }
+            return b == null || !b.getKey().isBefore(a.getKey()) ? a.getKey() : b.getKey();
+        }
+    }
+
+    /**
+     * The next pending occurrence of one event and the dates after it.
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        private Occurrence current;
+        private final Iterator<LocalDate> dates;
+
+        private Cursor(Occurrence current, Iterator<LocalDate> dates) {
+            this.current = current;
+            this.dates = dates;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+    /**
+     * An event of a batch add with its position in the batch, ordered by date and then
+     * as {@link Event#TIME_ORDER} orders events.
+     */
+    private static class Pending implements Comparable<Pending> {
+        private final Event event;
+        private final int index;
+        private final long day;
+        private final long start;
+        private final long end;
+
+        private Pending(Event event, int index) {
+            this.event = event;
+            this.index = index;
+            this.day = event.getDate().toEpochDay();
+            this.start = event.getStartTime().toNanoOfDay();
+            this.end = event.getEndTime().toNanoOfDay();
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            if (day != other.day) {
+                return Long.compare(day, other.day);
+            }
+            if (start != other.start) {
+                return Long.compare(start, other.start);
+            }
+            if (end != other.end) {
+                return Long.compare(end, other.end);
+            }
+            return Long.compare(event.getId(), other.event.getId());
+        }
+    }
+
+    /**
+     * Interval index of a day together with the state it was built from.
+     */
+    private static class CachedDay {
+        private final List<Event> bucket;
+        private final long generation;
+        private final DayIntervalIndex index;
+
+        private CachedDay(List<Event> bucket, long generation, DayIntervalIndex index) {
+            this.bucket = bucket;
+            this.generation = generation;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Immutable list of events valid for one value of the modification count.
+     */
+    private static class EventsView {
+        private final long version;
+        private final List<Event> events;
+
+        private EventsView(long version, List<Event> events) {
+            this.version = version;
+            this.events = events;
+        }
+    }
+
+    /**
+     * The outcome of one event of a batch add.
+     */
+    public static class AddResult {
+        private final Event event;
+        private final boolean added;
+        private final Event conflict;
+
+        /**
+         * Constructs a result.
+         * @param event    the event of the batch
+         * @param added    whether the event was added
+         * @param conflict the event it overlaps, or {@code null} if there is none
+         */
+        public AddResult(Event event, boolean added, Event conflict) {
+            this.event = event;
+            this.added = added;
+            this.conflict = conflict;
+        }
+
+        /**
+         * @return the event of the batch
+         */
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * @return {@code true} if the event was added
+         */
+        public boolean isAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the event this one overlaps: an event already in the calendar, or an earlier
+         * event of the batch.
+         * @return the overlapping event, or {@code null} if there is none
+         */
+        public Event getConflict() {
+            return conflict;
+        }
+
+        /**
+         * Returns the event, whether it was added and what it overlaps.
+         * @return a string representation of the result
+         */
+        @Override
+        public String toString() {
+            return event + (added ? " added" : " not added") + (conflict != null ? ", overlaps " + conflict : "");
+        }
     }
 }
@@ -12,17 +12,24 @@ import java.io.IOException;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Collections;
 import java.util.Scanner;
-import java.util.stream.Collectors;
-import java.util.Comparator;
 
 
 public class MyCalendarTester {
     private static LocalDate currentDate = LocalDate.now(); 
     // Default view is Month
     private static String currentView = "M"; 
+    // Renders the day and week views
+    private static CalendarPrinter viewPrinter = new CalendarPrinter();
+    // Every change is journaled here as it happens, so a crash loses nothing
+    private static final String JOURNAL_DIRECTORY = "calendar-data";
+    private static CalendarJournal journal;
+    // Free slots are only proposed inside working hours
+    private static final LocalTime WORK_START = LocalTime.of(8, 0);
+    private static final LocalTime WORK_END = LocalTime.of(18, 0);
 
      /**
      * Main method to start the calendar application.
@@ -35,11 +42,46 @@ public class MyCalendarTester {
         System.out.println("Calendar");
         CalendarPrinter calendarPrinter = new CalendarPrinter();
         calendarPrinter.printCalendar(currentDate, myCalendar); // Show the current view
+
+        // Recover the last session if there is one, otherwise start from events.txt
+        boolean recovered = false;
         try {
-            myCalendar.loadEvents("events.txt");
-        } catch (Exception e) {
+            recovered = CalendarJournal.exists(JOURNAL_DIRECTORY);
+            journal = CalendarJournal.recover(JOURNAL_DIRECTORY, myCalendar);
+            for (String error : journal.getRecoveryErrors()) {
+                System.out.println("Skipped " + error);
+            }
+            journal.setCompactionFailureHandler(e -> System.out.println("Journal compaction failed: " + e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not recover the calendar from " + JOURNAL_DIRECTORY + ": " + e.getMessage());
+            recovered = false;
+            myCalendar = new MyCalendar(); // Drop whatever the failed recovery loaded
+        }
+        if (!recovered) {
+            try {
+                myCalendar.loadEvents("events.txt");
+            } catch (Exception e) {
+                System.out.println("Could not load events.txt: " + e.getMessage());
+            }
+            if (journal != null) {
+                try {
+                    myCalendar.compactJournal();
+                } catch (IOException e) {
+                    System.out.println("Could not save the events to " + JOURNAL_DIRECTORY + ": " + e.getMessage());
+                }
+            }
+        }
+        if (journal != null) {
+            System.out.println("Changes are journaled to " + JOURNAL_DIRECTORY + ".");
+        } else {
+            System.out.println("Changes are not journaled and are only saved to output.txt on quit.");
         }
         System.out.println("Done loading!!!");
+
+        // Publish metrics over JMX; they are recorded when run with -Dcalendar.metrics=true
+        CalendarMetrics metrics = CalendarMetrics.getInstance();
+        metrics.watch("calendar", myCalendar);
+        metrics.registerMBean();
        
         boolean running = true;
         while (running) {
@@ -74,6 +116,9 @@ public class MyCalendarTester {
                 case "Q":
                     running = false;
                     Quitapp(myCalendar);
+                    if (metrics.isEnabled()) {
+                        metrics.dump(System.out);
+                    }
                     System.out.println("Good Bye");
                     break;
 
@@ -95,7 +140,7 @@ public class MyCalendarTester {
     public static void viewByMenu(Scanner scanner, MyCalendar myCalendar, CalendarPrinter calendarPrinter) {
         boolean running = true;
         while (running) {
-            System.out.println("[D]ay view or [M]onth view ?");
+            System.out.println("[D]ay view, [W]eek view, [M]onth view or [Y]ear view ?");
             String viewstyle = scanner.next().toUpperCase();
 
             switch (viewstyle) {
@@ -106,12 +151,26 @@ public class MyCalendarTester {
                     displayDayView(myCalendar);
                     break;
                     
+                case "W":
+                    // Reset currentDate to today for week view
+                    currentDate = LocalDate.now();
+                    currentView = "W";
+                    displayWeekView(myCalendar);
+                    break;
+
                 case "M":
                     // Reset currentDate to the current month for month view
                     currentDate = LocalDate.now();
                     currentView = "M";
                     calendarPrinter.printCalendar(currentDate, myCalendar);
                     break;
+
+                case "Y":
+                    // Reset currentDate to the current year for year view
+                    currentDate = LocalDate.now();
+                    currentView = "Y";
+                    calendarPrinter.renderYear(currentDate.getYear(), myCalendar, System.out);
+                    break;
                     
                 default:
                     System.out.println("Invalid option. Try again.");
@@ -129,9 +188,15 @@ public class MyCalendarTester {
                         if (currentView.equals("D")) {
                             currentDate = currentDate.minusDays(1);
                             displayDayView(myCalendar);
+                        } else if (currentView.equals("W")) {
+                            currentDate = currentDate.minusWeeks(1);
+                            displayWeekView(myCalendar);
                         } else if (currentView.equals("M")) {
                             currentDate = currentDate.minusMonths(1);
                             calendarPrinter.printCalendar(currentDate, myCalendar);
+                        } else if (currentView.equals("Y")) {
+                            currentDate = currentDate.minusYears(1);
+                            calendarPrinter.renderYear(currentDate.getYear(), myCalendar, System.out);
                         }
                         break;
 
@@ -141,10 +206,16 @@ public class MyCalendarTester {
                             currentDate = currentDate.plusDays(1); 
                             System.out.println("Next day: " + currentDate);
                             displayDayView(myCalendar);
+                        } else if (currentView.equals("W")) {
+                            currentDate = currentDate.plusWeeks(1);
+                            displayWeekView(myCalendar);
                         } else if (currentView.equals("M")) {
                             currentDate = currentDate.plusMonths(1); 
                             System.out.println("Next month: " + currentDate.getMonth());
                             calendarPrinter.printCalendar(currentDate, myCalendar);
+                        } else if (currentView.equals("Y")) {
+                            currentDate = currentDate.plusYears(1);
+                            calendarPrinter.renderYear(currentDate.getYear(), myCalendar, System.out);
                         }
                         break;
 
@@ -186,19 +257,20 @@ public class MyCalendarTester {
             System.out.println("The end-time must be after start time. Cannot create this event!");
             return;
         }
+        if (startTime.getNano() != 0 || endTime.getNano() != 0) {
+            System.out.println("Times are kept to the second. Cannot create this event!");
+            return;
+        }
 
         TimeInterval newTimeInterval = new TimeInterval(startTime, endTime); // Initialize newTimeInterval
 
-        // Check for time conflicts before adding the event
-        List<Event> events = myCalendar.getEventsForDate(date); // Now passing LocalDate
-        boolean conflict = events.stream().anyMatch(e -> e.getTimeInterval().overlaps(newTimeInterval));
-
-        if (conflict) {
-            System.out.println("Time conflict with an existing event. Cannot create this event!");
-        } else {
-            Event event = new Event(name, newTimeInterval, date, false, null);
-            myCalendar.add(event);
+        // Check for time conflicts and add the event in one step
+        Event event = new Event(name, newTimeInterval, date);
+        if (myCalendar.addIfNoConflict(event)) {
             System.out.println("Event was created successfully.");
+        } else {
+            System.out.println("Time conflict with an existing event. Cannot create this event!");
+            proposeSlot(myCalendar, date, Duration.between(startTime, endTime));
         }
     }
 
@@ -207,18 +279,15 @@ public class MyCalendarTester {
      * @param myCalendar The calendar containing events.
      */
     public static void displayDayView(MyCalendar myCalendar) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("E, MMM d yyyy");
-        System.out.println(formatter.format(currentDate));
+        viewPrinter.renderDay(currentDate, myCalendar, System.out);
+    }
 
-        List<Event> events = myCalendar.getEventsForDate(currentDate);
-        if (events.isEmpty()) {
-            System.out.println("No events for today.");
-        } else {
-            System.out.println("Event for this day:");
-            events.stream()
-                .sorted((e1, e2) -> e1.getStartTime().compareTo(e2.getStartTime()))
-                .forEach(System.out::println);
-        }
+    /**
+     * Displays the week view for the week of the current date.
+     * @param myCalendar The calendar containing events.
+     */
+    public static void displayWeekView(MyCalendar myCalendar) {
+        viewPrinter.renderWeek(currentDate, myCalendar, System.out);
     }
 
     /**
@@ -229,17 +298,7 @@ public class MyCalendarTester {
     public static void displayDayViewForDate(MyCalendar myCalendar, String dateStr) {
         LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("MM/dd/yyyy"));
         currentDate = date; // Update the currentDate to the specified date
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("E, MMM d yyyy");
-
-        List<Event> events = myCalendar.getEventsForDate(date);
-        if (events.isEmpty()) {
-            System.out.println("No events on " + formatter.format(date));
-        } else {
-            System.out.println("Event on " + formatter.format(date));
-            events.stream()
-                .sorted((e1, e2) -> e1.getStartTime().compareTo(e2.getStartTime()))
-                .forEach(System.out::println);
-        }
+        viewPrinter.renderDate(date, myCalendar, System.out);
     }
 
     /**
@@ -250,42 +309,23 @@ public class MyCalendarTester {
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
         System.out.println("One-time Events:");
 
-        // Get one-time events
-        List<Event> oneTimeEvents = myCalendar.getAllOneTimeEvents();
-        List<Event> recurringEvents = myCalendar.getAllRecurringEvents();
-
-        // Sort one-time events by date and start time
-        Collections.sort(oneTimeEvents, new Comparator<Event>() {
-            @Override
-            public int compare(Event e1, Event e2) {
-                if (e1.getDate().equals(e2.getDate())) {
-                    return e1.getStartTime().compareTo(e2.getStartTime());
-                }
-                return e1.getDate().compareTo(e2.getDate());
-            }
-        });
-
-        // Display sorted one-time events
-        for (Event event : oneTimeEvents) {
+        // One-time events come out of the calendar ordered by date and start time
+        myCalendar.oneTimeOccurrences(LocalDate.MIN, LocalDate.MAX).forEach(occurrence -> {
+            Event event = occurrence.getEvent();
             System.out.println(event.getName() + " on " + event.getDate().format(dateFormatter) + " from " + event.getStartTime() + " to " + event.getEndTime());
-        }
+        });
 
         System.out.println("\nRecurring Events:");
 
-        // Sort recurring events by date 
-        Collections.sort(recurringEvents, new Comparator<Event>() {
-            @Override
-            public int compare(Event e1, Event e2) {
-                LocalDate date1 = e1.isRecurring() ? e1.getRecurrenceDates().get(0) : e1.getDate();
-                LocalDate date2 = e2.isRecurring() ? e2.getRecurrenceDates().get(0) : e2.getDate();
-                return date1.compareTo(date2);
-            }
-        });
+        // Sort recurring events by their first occurrence, leaving out rules that never match inside their range
+        List<Event> recurringEvents = new ArrayList<>(myCalendar.getAllRecurringEvents());
+        recurringEvents.removeIf(event -> event.getFirstOccurrence() == null);
+        recurringEvents.sort(Comparator.comparing(Event::getFirstOccurrence));
         
         // Display sorted recurring events
         for (Event event : recurringEvents) {
-            LocalDate firstDay = event.getRecurrenceDates().get(0);
-            LocalDate lastDay = event.getRecurrenceDates().get(event.getRecurrenceDates().size() - 1);
+            LocalDate firstDay = event.getFirstOccurrence();
+            LocalDate lastDay = event.getLastOccurrence();
             
             System.out.println(event.getName()  + " with first day is " + firstDay.format(dateFormatter) + " and last day is " + lastDay.format(dateFormatter) + " from " + event.getStartTime() + " to " + event.getEndTime());        }
     }
@@ -323,6 +363,25 @@ public class MyCalendarTester {
     }
     
 
+    /**
+     * Suggests the first free slot of the same length, within working hours, from the requested date
+     * through the following week.
+     * @param myCalendar The calendar containing events.
+     * @param date The date the user asked for.
+     * @param length The length of the event.
+     */
+    private static void proposeSlot(MyCalendar myCalendar, LocalDate date, Duration length) {
+        if (length.isZero() || length.compareTo(Duration.between(WORK_START, WORK_END)) > 0) {
+            return;
+        }
+        List<FreeBusy.Slot> slots = new FreeBusy(myCalendar).findFreeSlots(date, date.plusDays(7), WORK_START, WORK_END, length, 1);
+        if (!slots.isEmpty()) {
+            FreeBusy.Slot slot = slots.get(0);
+            System.out.println("The first free slot is " + slot.getDate().format(DateTimeFormatter.ofPattern("MM/dd/yyyy"))
+                    + " from " + slot.getInterval().getStart() + " to " + slot.getInterval().getEnd() + ".");
+        }
+    }
+
     /**
      * Deletes a specific or all one-time events on a given date if calendar have
      * @param myCalendar The calendar from which events will be deleted.
@@ -362,16 +421,13 @@ public class MyCalendarTester {
                     .orElse(null);
     
             if (RemoveEvent != null) {
-                myCalendar.remove(RemoveEvent);
+                myCalendar.removeById(RemoveEvent.getId());
                 System.out.println("Event '" + eventName + "' is deleted.");
             } else {
                 System.out.println("Event not found or cannot delete recurring events.");
             }
         } else {
-            EventChosen.stream()
-                    .filter(event -> !event.isRecurring())
-                    .forEach(myCalendar::remove);
-    
+            myCalendar.removeOneTimeEventsOn(date);
             System.out.println("All one-time events on " + date + " are deleted.");
         }
     }
@@ -385,17 +441,10 @@ public class MyCalendarTester {
         System.out.println("Enter the name of the recurring event to delete: ");
         String RecurringEvent = scanner.nextLine().trim(); // Ensure to trim any extra whitespace
     
-        List<Event> recurringEvents = myCalendar.getAllRecurringEvents();
-        List<Event> RemoveEvent = recurringEvents.stream()
-                .filter(event -> event.getName().equals(RecurringEvent))
-                .collect(Collectors.toList());
-    
-        if (RemoveEvent.isEmpty()) {
+        if (myCalendar.removeRecurringByName(RecurringEvent) == 0) {
             System.out.println("No recurring event with the name '" + RecurringEvent + "' found.");
             return;
         }
-    
-        RemoveEvent.forEach(myCalendar::remove);
         System.out.println("Recurring event '" + RecurringEvent + "' is deleted.");
     }
       
@@ -422,6 +471,24 @@ public class MyCalendarTester {
         } catch (IOException e) {
             System.out.println("An error occurred while saving events.");
             e.printStackTrace(); 
+        } finally {
+            closeJournal();
+        }
+    }
+
+    /**
+     * Writes out the last journaled changes and closes the journal, if one is open.
+     */
+    private static void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("An error occurred while closing the journal: " + e.getMessage());
+        } finally {
+            journal = null;
         }
     }
 }
@@ -0,0 +1,80 @@
+/**
+*One occurrence of an event: the event together with one date it takes place on.
+*Occurrences order by date, then start time, then end time, then the order the events were created.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+
+public class Occurrence implements Comparable<Occurrence> {
+    private LocalDate date;
+    private Event event;
+
+    /**
+     * Constructs an occurrence of an event.
+     * @param date  the date the event takes place on
+     * @param event the event
+     */
+    public Occurrence(LocalDate date, Event event) {
+        this.date = date;
+        this.event = event;
+    }
+
+    /**
+     * Returns the date of the occurrence.
+     * @return the date the event takes place on
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the event that occurs.
+     * @return the one-time or recurring event
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the start time of the occurrence.
+     * @return the start time of the event
+     */
+    public LocalTime getStartTime() {
+        return event.getStartTime();
+    }
+
+    /**
+     * Returns the end time of the occurrence.
+     * @return the end time of the event
+     */
+    public LocalTime getEndTime() {
+        return event.getEndTime();
+    }
+
+    /**
+     * Compares by date, then as {@link Event#TIME_ORDER} orders the events.
+     * @param other the occurrence to compare to
+     * @return a negative number, zero or a positive number as this occurrence comes first, together or after
+     */
+    @Override
+    public int compareTo(Occurrence other) {
+        int order = date.compareTo(other.date);
+        return order != 0 ? order : Event.TIME_ORDER.compare(event, other.event);
+    }
+
+    /**
+     * Returns the date followed by the event name and time interval.
+     * @return a string representation of the occurrence
+     */
+    @Override
+    public String toString() {
+        return date + " " + event;
+    }
+}
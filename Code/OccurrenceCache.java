@@ -0,0 +1,128 @@
+/**
+*Bounded cache of expanded recurrences. For each month it keeps the days the calendar's recurring
+*events occur on as a 31-bit mask, so moving back and forth between a few months reuses the expansion
+*instead of recomputing it. Entries are tagged with the generation of the recurring events they were
+*expanded from and are only served while it is current. The least recently used entries are evicted
+*once the cache is full, and hit, miss and eviction counts are kept for tuning.
+*Entries are keyed by month alone, so a cache serves one calendar's recurring events as a whole:
+*it cannot hold masks for a subset of them, and any change to a recurring event invalidates every
+*month, even months the change does not touch. That keeps lookups to one map probe and
+*invalidation to one counter, at the cost of re-expanding the visited months after each change.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+
+public class OccurrenceCache {
+    private int capacity;
+    // Access-ordered, so the eldest entry is the least recently used; guarded by this
+    private LinkedHashMap<YearMonth, Entry> masks;
+    private LongAdder hits;
+    private LongAdder misses;
+    private LongAdder evictions;
+
+    /**
+     * Creates an empty cache.
+     * @param capacity the largest number of months kept
+     */
+    public OccurrenceCache(int capacity) {
+        this.capacity = capacity;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.masks = new LinkedHashMap<YearMonth, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, Entry> eldest) {
+                if (size() > OccurrenceCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the days of a month the recurring events occur on, from the cache or by expanding them.
+     * @param month      the month
+     * @param generation the current generation of the recurring events
+     * @param expand     expands the recurring events over a month into a day-of-month mask
+     * @return a mask where bit {@code d - 1} is set if a recurring event occurs on day {@code d} of the month
+     */
+    public int getMonthMask(YearMonth month, long generation, ToIntFunction<YearMonth> expand) {
+        synchronized (this) {
+            Entry entry = masks.get(month);
+            if (entry != null && entry.generation == generation) {
+                hits.increment();
+                return entry.mask;
+            }
+        }
+        misses.increment();
+        int mask = expand.applyAsInt(month);
+        synchronized (this) {
+            masks.put(month, new Entry(generation, mask));
+        }
+        return mask;
+    }
+
+    /**
+     * Drops every entry, for when the recurring events change. The counters are kept.
+     */
+    public synchronized void clear() {
+        masks.clear();
+    }
+
+    /**
+     * Returns the number of months in the cache.
+     * @return the number of cached month masks
+     */
+    public synchronized int size() {
+        return masks.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to expand the recurring events.
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the capacity.
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * A month mask and the generation of the recurring events it was expanded from.
+     */
+    private static class Entry {
+        private final long generation;
+        private final int mask;
+
+        private Entry(long generation, int mask) {
+            this.generation = generation;
+            this.mask = mask;
+        }
+    }
+}
@@ -0,0 +1,919 @@
+/**
+*Event store that keeps its events outside the Java heap, for calendars with hundreds of millions
+*of events. Each event is a fixed 40-byte record in direct byte buffers and names are kept once per
+*event in a separate arena of direct buffers, so the garbage collector never traces the events and
+*the heap holds only a handful of buffer references however many events are stored.
+*One-time events are chained per day through the records and recurring events are chained
+*together. Recurring events are also indexed per block of 64 days by small off-heap link nodes,
+*so a day lookup only reads the recurring events whose range covers its block.
+*A removed record is unlinked from its chains and marked removed; its space is not reused.
+*{@code Event} objects are only created when a query returns them, with the id of the event
+*that was added. A store is not safe for
+*concurrent use.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+
+public class OffHeapEventStore {
+    // Record layout: start day, end day, start and end second of day, name reference, next record
+    // in the chain (plus one, 0 ends the chain), weekday mask with the recurring flag, removed flag,
+    // padding, event id
+    private static final int RECORD_BYTES = 40;
+    private static final int START_DAY = 0;
+    private static final int END_DAY = 4;
+    private static final int START_SECOND = 8;
+    private static final int END_SECOND = 12;
+    private static final int NAME = 16;
+    private static final int NEXT = 24;
+    private static final int FLAGS = 28;
+    private static final int REMOVED = 29;
+    private static final int ID = 32;
+    private static final int RECURRING = 0x80;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Records are allocated in chunks of 2^16, 2.5 MB each
+    private static final int CHUNK_BITS = 16;
+    private static final int RECORDS_PER_CHUNK = 1 << CHUNK_BITS;
+    // Name arena chunks start small and double up to this size
+    private static final int MAX_ARENA_CHUNK = 1 << 24;
+    // Link node layout: record, next node in the chain (plus one, 0 ends the chain)
+    private static final int LINK_BYTES = 8;
+    private static final int LINK_RECORD = 0;
+    private static final int LINK_NEXT = 4;
+    private static final int LINK_CHUNK_BITS = 16;
+    private static final int LINKS_PER_CHUNK = 1 << LINK_CHUNK_BITS;
+    // Recurring events are indexed per block of 2^6 days
+    private static final int BLOCK_BITS = 6;
+
+    private List<ByteBuffer> records;
+    private int recordCount;
+    private int liveCount;
+    // Whether ids grew with every record added, so a record can be found by binary search on its id
+    private boolean idsAscending;
+
+    // Name of each record as a 2-byte length and UTF-8 bytes; a reference is chunk << 32 | offset
+    private List<ByteBuffer> arena;
+
+    // Link nodes of the block index, allocated in chunks of 2^16, 512 KB each
+    private List<ByteBuffer> links;
+    private int linkCount;
+
+    // Chain of one-time events of each epoch day
+    private HeadTable dayHeads;
+    // Chain of link nodes to the recurring events covering each block of days
+    private HeadTable blockHeads;
+    // Head of the chain of recurring events, plus one, 0 if none
+    private int recurringHead;
+
+    /**
+     * Creates an empty store.
+     */
+    public OffHeapEventStore() {
+        this.records = new ArrayList<>();
+        this.idsAscending = true;
+        this.arena = new ArrayList<>();
+        arena.add(ByteBuffer.allocateDirect(1 << 16));
+        this.links = new ArrayList<>();
+        this.dayHeads = new HeadTable();
+        this.blockHeads = new HeadTable();
+    }
+
+    /**
+     * Load events from a file in the events file format.
+     * @param filename the name of the file to load events from
+     * @return the parse errors, as "line N: message", empty if every record was read
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public List<String> loadEvents(String filename) throws IOException {
+        EventFileParser parser = new EventFileParser(this::add);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            parser.parse(channel);
+        }
+        return parser.getErrors();
+    }
+
+    /**
+     * Load events from an iCalendar (.ics) file, one content line at a time.
+     * @param filename the name of the .ics file
+     * @return the events skipped, as "line N: message", empty if every VEVENT was read
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public List<String> loadICalendar(String filename) throws IOException {
+        ICalendarReader reader = new ICalendarReader(this::add);
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+            reader.parse(in);
+        }
+        return reader.getErrors();
+    }
+
+    /**
+     * Load events from a snapshot written by {@link CalendarSnapshot#write}.
+     * @param filename the snapshot file
+     * @return the number of events read
+     * @throws IOException if an I/O error occurs or the file is not a valid snapshot
+     */
+    public int loadSnapshot(String filename) throws IOException {
+        return CalendarSnapshot.read(filename, this::add);
+    }
+
+    /**
+     * Adds an event to the store. Only its fields are kept, not the object.
+     * @param event the {@code Event} to be added
+     * @throws IllegalArgumentException if the event has a time with a fraction of a second
+     */
+    public void add(Event event) {
+        CalendarSnapshot.checkStorable(event);
+        if (recordCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The store is full");
+        }
+        int record = recordCount++;
+        if ((record & (RECORDS_PER_CHUNK - 1)) == 0) {
+            records.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_BYTES));
+        }
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        if (record > 0 && event.getId() <= idOf(record - 1)) {
+            idsAscending = false;
+        }
+        chunk.putLong(at + ID, event.getId());
+        long startDay = event.getStartDate().toEpochDay();
+        chunk.putInt(at + START_DAY, (int) startDay);
+        chunk.putInt(at + END_DAY, (int) event.getEndDate().toEpochDay());
+        chunk.putInt(at + START_SECOND, event.getStartTime().toSecondOfDay());
+        chunk.putInt(at + END_SECOND, event.getEndTime().toSecondOfDay());
+        chunk.putLong(at + NAME, storeName(event.getName()));
+        chunk.put(at + FLAGS, event.isRecurring() ? (byte) (RECURRING | event.getDayMask()) : 0);
+
+        if (event.isRecurring()) {
+            chunk.putInt(at + NEXT, recurringHead);
+            recurringHead = record + 1;
+            for (long block = startDay >> BLOCK_BITS; block <= event.getEndDate().toEpochDay() >> BLOCK_BITS; block++) {
+                addLink(block, record);
+            }
+        } else {
+            chunk.putInt(at + NEXT, dayHeads.get(startDay));
+            dayHeads.set(startDay, record + 1);
+        }
+        liveCount++;
+    }
+
+    /**
+     * Adds an event only if it does not overlap any event already in the store.
+     * A recurring event is checked against the one-time events of each of its occurrences and
+     * against the recurring events of each block of days it covers, read once per block.
+     * @param event the {@code Event} to be added
+     * @return {@code true} if the event was added, {@code false} if it conflicts
+     */
+    public boolean addIfNoConflict(Event event) {
+        boolean conflict = event.isRecurring()
+                ? hasRecurringConflict(event)
+                : hasConflict(event.getDate(), event.getTimeInterval());
+        if (conflict) {
+            return false;
+        }
+        add(event);
+        return true;
+    }
+
+    /**
+     * Adds a batch of one-time events, checking each against the store and against the events of
+     * the batch before it, as {@link MyCalendar#addAll(Collection, ConflictPolicy)} does: of two
+     * overlapping batch events, the one that starts first (then ends first) is kept.
+     * Events already in the store, and repeats, are skipped.
+     * @param events the events to add
+     * @param policy what to do with conflicting events
+     * @return one result per event, in the order of {@code events}
+     * @throws IllegalArgumentException if an event is recurring
+     */
+    public List<MyCalendar.AddResult> addAll(Collection<Event> events, ConflictPolicy policy) {
+        Event[] batch = events.toArray(new Event[0]);
+        Integer[] order = new Integer[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i].isRecurring()) {
+                throw new IllegalArgumentException("Batches may only hold one-time events: " + batch[i]);
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> batch[i].getDate())
+                .thenComparing(i -> batch[i], Event.TIME_ORDER));
+
+        Set<Long> stored = liveIds(batch);
+        Event[] conflicts = new Event[batch.length];
+        boolean[] skipped = new boolean[batch.length];
+        Set<Long> seen = new HashSet<>();
+        boolean anyConflict = false;
+        // Events of the batch kept so far on the day being swept
+        List<Event> kept = new ArrayList<>();
+        LocalDate keptDate = null;
+        for (int i : order) {
+            Event event = batch[i];
+            if (!seen.add(event.getId()) || stored.contains(event.getId())) {
+                skipped[i] = true;
+                continue;
+            }
+            if (!event.getDate().equals(keptDate)) {
+                kept.clear();
+                keptDate = event.getDate();
+            }
+            int record = firstConflict(event.getDate(), event.getTimeInterval()) - 1;
+            Event conflict = record >= 0 ? materialize(record) : null;
+            for (int k = 0; conflict == null && k < kept.size(); k++) {
+                if (kept.get(k).getTimeInterval().overlaps(event.getTimeInterval())) {
+                    conflict = kept.get(k);
+                }
+            }
+            conflicts[i] = conflict;
+            anyConflict |= conflict != null;
+            if (conflict == null || policy == ConflictPolicy.ALLOW) {
+                kept.add(event);
+            }
+        }
+
+        boolean addNone = anyConflict && policy == ConflictPolicy.ALL_OR_NOTHING;
+        List<MyCalendar.AddResult> results = new ArrayList<>(batch.length);
+        for (int i = 0; i < batch.length; i++) {
+            boolean added = !skipped[i] && !addNone && (conflicts[i] == null || policy == ConflictPolicy.ALLOW);
+            if (added) {
+                add(batch[i]);
+            }
+            results.add(new MyCalendar.AddResult(batch[i], added, conflicts[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Delete an event from the store.
+     * Deleting a recurring event deletes every recurring event with the same name. Deleting a
+     * one-time event deletes the event with its id or, if there is none, one event of its date
+     * with the same name and times.
+     * @param event the {@code Event} to be deleted
+     */
+    public void remove(Event event) {
+        if (event.isRecurring()) {
+            removeRecurringByName(event.getName());
+            return;
+        }
+        if (removeById(event.getId())) {
+            return;
+        }
+        long day = event.getDate().toEpochDay();
+        byte[] name = event.getName().getBytes(StandardCharsets.UTF_8);
+        long start = event.getStartTime().toNanoOfDay();
+        long end = event.getEndTime().toNanoOfDay();
+        int previous = 0;
+        for (int link = dayHeads.get(day); link != 0; link = next(link - 1)) {
+            int record = link - 1;
+            ByteBuffer chunk = chunkOf(record);
+            int at = offsetOf(record);
+            if (chunk.getInt(at + START_SECOND) * NANOS_PER_SECOND == start
+                    && chunk.getInt(at + END_SECOND) * NANOS_PER_SECOND == end
+                    && nameEquals(chunk.getLong(at + NAME), name)) {
+                unlink(previous, record, day);
+                return;
+            }
+            previous = link;
+        }
+    }
+
+    /**
+     * Deletes the event with the given id.
+     * The record is found by binary search while ids were added in increasing order, as they are
+     * when events are created and added in turn, and by a scan of the records otherwise.
+     * @param id the id of the event, as returned by {@link Event#getId()}
+     * @return {@code true} if an event was deleted, {@code false} if there is no event with that id
+     */
+    public boolean removeById(long id) {
+        int record = findRecord(id);
+        if (record < 0) {
+            return false;
+        }
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        int previous = 0;
+        if ((chunk.get(at + FLAGS) & RECURRING) != 0) {
+            for (int link = recurringHead; link != record + 1; link = next(link - 1)) {
+                previous = link;
+            }
+            unlinkRecurring(previous, record);
+        } else {
+            long day = chunk.getInt(at + START_DAY);
+            for (int link = dayHeads.get(day); link != record + 1; link = next(link - 1)) {
+                previous = link;
+            }
+            unlink(previous, record, day);
+        }
+        return true;
+    }
+
+    /**
+     * Deletes every recurring event with the given name.
+     * @param name the name of the recurring events
+     * @return the number of events deleted
+     */
+    public int removeRecurringByName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int removed = 0;
+        int previous = 0;
+        int link = recurringHead;
+        while (link != 0) {
+            int record = link - 1;
+            int following = next(record);
+            if (nameEquals(chunkOf(record).getLong(offsetOf(record) + NAME), bytes)) {
+                unlinkRecurring(previous, record);
+                removed++;
+            } else {
+                previous = link;
+            }
+            link = following;
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes every one-time event on the given date.
+     * @param date the date
+     * @return the number of events deleted
+     */
+    public int removeOneTimeEventsOn(LocalDate date) {
+        long day = date.toEpochDay();
+        int removed = 0;
+        for (int link = dayHeads.get(day); link != 0; link = next(link - 1)) {
+            chunkOf(link - 1).put(offsetOf(link - 1) + REMOVED, (byte) 1);
+            removed++;
+        }
+        if (removed > 0) {
+            dayHeads.set(day, 0);
+        }
+        liveCount -= removed;
+        return removed;
+    }
+
+    /**
+     * Returns the number of events in the store.
+     * @return the number of events added and not deleted
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Retrieves the events of a specific date, ordered by {@link Event#TIME_ORDER}.
+     * Each call creates new {@code Event} objects, with the ids of the events that were added.
+     * @param date the {@code LocalDate} to find events for
+     * @return a new list of the events occurring on the date
+     */
+    public List<Event> getEventsForDate(LocalDate date) {
+        List<Event> events = new ArrayList<>();
+        long day = date.toEpochDay();
+        collect(dayHeads.get(day), events);
+        int bit = Event.dayBit(date);
+        List<Event> recurring = new ArrayList<>();
+        for (int node = blockHeads.get(day >> BLOCK_BITS); node != 0; node = linkNext(node - 1)) {
+            int record = linkRecord(node - 1);
+            if (occursOn(record, day, bit)) {
+                recurring.add(materialize(record));
+            }
+        }
+        Collections.reverse(recurring);
+        events.addAll(recurring);
+        events.sort(Event.TIME_ORDER);
+        return events;
+    }
+
+    /**
+     * Checks if any event on the given date overlaps a time interval, reading the records in place.
+     * Overlap follows {@link TimeInterval#overlaps(TimeInterval)}.
+     * @param date     the date to check
+     * @param interval the time interval to check
+     * @return {@code true} if an event on that date overlaps the interval, {@code false} otherwise
+     */
+    public boolean hasConflict(LocalDate date, TimeInterval interval) {
+        return firstConflict(date, interval) != 0;
+    }
+
+    /**
+     * Finds the events on the given date that overlap a time interval. The records are tested in
+     * place and only the overlapping ones are materialized.
+     * @param date     the date to check
+     * @param interval the time interval to check
+     * @return the overlapping events, ordered by {@link Event#TIME_ORDER}
+     */
+    public List<Event> findConflicts(LocalDate date, TimeInterval interval) {
+        long start = interval.getStart().toNanoOfDay();
+        long end = interval.getEnd().toNanoOfDay();
+        long day = date.toEpochDay();
+        List<Event> conflicts = new ArrayList<>();
+        for (int link = dayHeads.get(day); link != 0; link = next(link - 1)) {
+            if (overlaps(link - 1, start, end)) {
+                conflicts.add(materialize(link - 1));
+            }
+        }
+        int bit = Event.dayBit(date);
+        for (int node = blockHeads.get(day >> BLOCK_BITS); node != 0; node = linkNext(node - 1)) {
+            int record = linkRecord(node - 1);
+            if (occursOn(record, day, bit) && overlaps(record, start, end)) {
+                conflicts.add(materialize(record));
+            }
+        }
+        conflicts.sort(Event.TIME_ORDER);
+        return conflicts;
+    }
+
+    /**
+     * Streams every occurrence in a date range, one-time and recurring, ordered as {@link Occurrence}
+     * orders them. The stream is lazy: the events of a date are only read when the stream reaches it.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return an ordered stream of the occurrences between {@code from} and {@code to}, inclusive
+     */
+    public Stream<Occurrence> occurrences(LocalDate from, LocalDate to) {
+        return from.datesUntil(to.plusDays(1))
+                .flatMap(date -> getEventsForDate(date).stream().map(event -> new Occurrence(date, event)));
+    }
+
+    /**
+     * Computes which days of a date range have at least one event. Recurring events are read
+     * through the block index, so only those whose range covers a block of the range are visited.
+     * @param from the first day of the range
+     * @param to   the last day of the range
+     * @return a bit set where bit i is set if the day {@code from + i} has an event
+     */
+    public BitSet getOccupancy(LocalDate from, LocalDate to) {
+        BitSet occupied = new BitSet();
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        for (long day = Math.max(first, dayHeads.first); day <= last && day < dayHeads.first + dayHeads.capacity; day++) {
+            if (dayHeads.get(day) != 0) {
+                occupied.set((int) (day - first));
+            }
+        }
+        for (long block = first >> BLOCK_BITS; block <= last >> BLOCK_BITS; block++) {
+            // The days of the range in this block; a record covering several blocks is read once per block
+            long blockFirst = Math.max(first, block << BLOCK_BITS);
+            long blockLast = Math.min(last, ((block + 1) << BLOCK_BITS) - 1);
+            for (int node = blockHeads.get(block); node != 0; node = linkNext(node - 1)) {
+                int record = linkRecord(node - 1);
+                ByteBuffer chunk = chunkOf(record);
+                int at = offsetOf(record);
+                long start = Math.max(blockFirst, chunk.getInt(at + START_DAY));
+                long end = Math.min(blockLast, chunk.getInt(at + END_DAY));
+                int mask = chunk.get(at + FLAGS) & 0x7F;
+                for (int weekday = 0; weekday < 7 && start <= end; weekday++) {
+                    if ((mask & (1 << weekday)) != 0) {
+                        // Epoch day 0 was a Thursday, mask bit 3
+                        for (long day = start + Math.floorMod(weekday - (start + 3), 7); day <= end; day += 7) {
+                            occupied.set((int) (day - first));
+                        }
+                    }
+                }
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Returns every one-time event, ordered by date and then by {@link Event#TIME_ORDER}.
+     * @return a new list of the one-time events
+     */
+    public List<Event> getAllOneTimeEvents() {
+        List<Event> events = new ArrayList<>();
+        List<Event> day = new ArrayList<>();
+        for (long key = dayHeads.first; key < dayHeads.first + dayHeads.capacity; key++) {
+            day.clear();
+            collect(dayHeads.get(key), day);
+            day.sort(Event.TIME_ORDER);
+            events.addAll(day);
+        }
+        return events;
+    }
+
+    /**
+     * Returns every recurring event, ordered by start date and then by {@link Event#TIME_ORDER}.
+     * @return a new list of the recurring events
+     */
+    public List<Event> getAllRecurringEvents() {
+        List<Event> events = new ArrayList<>();
+        for (int link = recurringHead; link != 0; link = next(link - 1)) {
+            events.add(materialize(link - 1));
+        }
+        Collections.reverse(events);
+        events.sort(Comparator.comparing(Event::getStartDate).thenComparing(Event.TIME_ORDER));
+        return events;
+    }
+
+    /**
+     * Returns the off-heap memory held by the store: record chunks, name arena, link nodes and chain heads.
+     * @return the allocated direct memory in bytes
+     */
+    public long getOffHeapBytes() {
+        long bytes = (long) records.size() * RECORDS_PER_CHUNK * RECORD_BYTES
+                + (long) links.size() * LINKS_PER_CHUNK * LINK_BYTES
+                + 4L * dayHeads.capacity + 4L * blockHeads.capacity;
+        for (ByteBuffer chunk : arena) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap used by the store: the buffer objects and the lists holding them.
+     * It grows by one buffer per 65,536 events, link nodes and arena chunk, not per event.
+     * @return the approximate size in bytes
+     */
+    public long estimateHeapBytes() {
+        // A direct buffer object with its cleaner, and a list slot for it
+        return 96 + (records.size() + arena.size() + links.size() + 2) * (112L + 8);
+    }
+
+    /**
+     * Returns the first record of a date, plus one, whose event overlaps the interval, or 0 if none does.
+     */
+    private int firstConflict(LocalDate date, TimeInterval interval) {
+        long start = interval.getStart().toNanoOfDay();
+        long end = interval.getEnd().toNanoOfDay();
+        long day = date.toEpochDay();
+        for (int link = dayHeads.get(day); link != 0; link = next(link - 1)) {
+            if (overlaps(link - 1, start, end)) {
+                return link;
+            }
+        }
+        int bit = Event.dayBit(date);
+        for (int node = blockHeads.get(day >> BLOCK_BITS); node != 0; node = linkNext(node - 1)) {
+            int record = linkRecord(node - 1);
+            if (occursOn(record, day, bit) && overlaps(record, start, end)) {
+                return record + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Checks if any occurrence of a recurring event overlaps an event of the store. One-time events
+     * are read from the day chain of each occurrence; recurring events from the chain of each block
+     * the event covers, checking whether the two share a weekday inside both ranges and the block.
+     */
+    private boolean hasRecurringConflict(Event event) {
+        TimeInterval interval = event.getTimeInterval();
+        Iterator<LocalDate> dates = event.occurrences(event.getStartDate(), event.getEndDate());
+        while (dates.hasNext()) {
+            long day = dates.next().toEpochDay();
+            for (int link = dayHeads.get(day); link != 0; link = next(link - 1)) {
+                if (overlaps(link - 1, interval.getStart().toNanoOfDay(), interval.getEnd().toNanoOfDay())) {
+                    return true;
+                }
+            }
+        }
+
+        long first = event.getStartDate().toEpochDay();
+        long last = event.getEndDate().toEpochDay();
+        for (long block = first >> BLOCK_BITS; block <= last >> BLOCK_BITS; block++) {
+            long blockFirst = Math.max(first, block << BLOCK_BITS);
+            long blockLast = Math.min(last, ((block + 1) << BLOCK_BITS) - 1);
+            for (int node = blockHeads.get(block); node != 0; node = linkNext(node - 1)) {
+                int record = linkRecord(node - 1);
+                ByteBuffer chunk = chunkOf(record);
+                int at = offsetOf(record);
+                if (overlaps(record, interval.getStart().toNanoOfDay(), interval.getEnd().toNanoOfDay())
+                        && occursBetween(event.getDayMask() & chunk.get(at + FLAGS),
+                                Math.max(blockFirst, chunk.getInt(at + START_DAY)),
+                                Math.min(blockLast, chunk.getInt(at + END_DAY)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a day between two epoch days, inclusive, falls on a weekday of a mask.
+     */
+    private static boolean occursBetween(int mask, long from, long to) {
+        if ((mask & 0x7F) == 0 || from > to) {
+            return false;
+        }
+        if (to - from >= 6) {
+            return true;
+        }
+        for (long day = from; day <= to; day++) {
+            // Epoch day 0 was a Thursday, mask bit 3
+            if ((mask & (1 << Math.floorMod(day + 3, 7))) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the event of a record overlaps [start, end), in nanoseconds of day, as
+     * {@link TimeInterval#overlaps} does.
+     */
+    private boolean overlaps(int record, long start, long end) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        return chunk.getInt(at + START_SECOND) * NANOS_PER_SECOND < end
+                && chunk.getInt(at + END_SECOND) * NANOS_PER_SECOND > start;
+    }
+
+    /**
+     * Checks if the recurring event of a record occurs on a day.
+     */
+    private boolean occursOn(int record, long day, int bit) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        return chunk.getInt(at + START_DAY) <= day && day <= chunk.getInt(at + END_DAY) && (chunk.get(at + FLAGS) & bit) != 0;
+    }
+
+    /**
+     * Materializes the events of a day chain into a list, in the order they were added.
+     */
+    private void collect(int head, List<Event> out) {
+        int from = out.size();
+        for (int link = head; link != 0; link = next(link - 1)) {
+            out.add(materialize(link - 1));
+        }
+        Collections.reverse(out.subList(from, out.size()));
+    }
+
+    /**
+     * Removes a one-time record from the chain of its day.
+     * @param previous the record before it in the chain, plus one, or 0 if it is the head
+     * @param record   the record
+     * @param day      its epoch day
+     */
+    private void unlink(int previous, int record, long day) {
+        if (previous != 0) {
+            chunkOf(previous - 1).putInt(offsetOf(previous - 1) + NEXT, next(record));
+        } else {
+            dayHeads.set(day, next(record));
+        }
+        chunkOf(record).put(offsetOf(record) + REMOVED, (byte) 1);
+        liveCount--;
+    }
+
+    /**
+     * Removes a recurring record from the recurring chain and from the chain of each block it covers.
+     * @param previous the record before it in the recurring chain, plus one, or 0 if it is the head
+     * @param record   the record
+     */
+    private void unlinkRecurring(int previous, int record) {
+        if (previous != 0) {
+            chunkOf(previous - 1).putInt(offsetOf(previous - 1) + NEXT, next(record));
+        } else {
+            recurringHead = next(record);
+        }
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        for (long block = chunk.getInt(at + START_DAY) >> BLOCK_BITS; block <= chunk.getInt(at + END_DAY) >> BLOCK_BITS; block++) {
+            int before = 0;
+            for (int node = blockHeads.get(block); node != 0; node = linkNext(node - 1)) {
+                if (linkRecord(node - 1) == record) {
+                    if (before != 0) {
+                        linkChunkOf(before - 1).putInt(linkOffsetOf(before - 1) + LINK_NEXT, linkNext(node - 1));
+                    } else {
+                        blockHeads.set(block, linkNext(node - 1));
+                    }
+                    break;
+                }
+                before = node;
+            }
+        }
+        chunk.put(at + REMOVED, (byte) 1);
+        liveCount--;
+    }
+
+    /**
+     * Prepends a link node for a recurring record to the chain of a block.
+     */
+    private void addLink(long block, int record) {
+        if (linkCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The store is full");
+        }
+        int node = linkCount++;
+        if ((node & (LINKS_PER_CHUNK - 1)) == 0) {
+            links.add(ByteBuffer.allocateDirect(LINKS_PER_CHUNK * LINK_BYTES));
+        }
+        ByteBuffer chunk = linkChunkOf(node);
+        int at = linkOffsetOf(node);
+        chunk.putInt(at + LINK_RECORD, record);
+        chunk.putInt(at + LINK_NEXT, blockHeads.get(block));
+        blockHeads.set(block, node + 1);
+    }
+
+    private int linkRecord(int node) {
+        return linkChunkOf(node).getInt(linkOffsetOf(node) + LINK_RECORD);
+    }
+
+    private int linkNext(int node) {
+        return linkChunkOf(node).getInt(linkOffsetOf(node) + LINK_NEXT);
+    }
+
+    private ByteBuffer linkChunkOf(int node) {
+        return links.get(node >>> LINK_CHUNK_BITS);
+    }
+
+    private static int linkOffsetOf(int node) {
+        return (node & (LINKS_PER_CHUNK - 1)) * LINK_BYTES;
+    }
+
+    /**
+     * Creates the {@code Event} of a record.
+     */
+    private Event materialize(int record) {
+        ByteBuffer chunk = chunkOf(record);
+        int at = offsetOf(record);
+        TimeInterval interval = new TimeInterval(LocalTime.ofSecondOfDay(chunk.getInt(at + START_SECOND)),
+                LocalTime.ofSecondOfDay(chunk.getInt(at + END_SECOND)));
+        String name = loadName(chunk.getLong(at + NAME));
+        LocalDate start = LocalDate.ofEpochDay(chunk.getInt(at + START_DAY));
+        long id = chunk.getLong(at + ID);
+        int flags = chunk.get(at + FLAGS);
+        if ((flags & RECURRING) == 0) {
+            return new Event(id, name, interval, start);
+        }
+        return new Event(id, name, interval, start, LocalDate.ofEpochDay(chunk.getInt(at + END_DAY)), flags & 0x7F);
+    }
+
+    /**
+     * Returns the live record holding an event id, or -1 if there is none.
+     */
+    private int findRecord(long id) {
+        int record = -1;
+        if (idsAscending) {
+            int lo = 0;
+            int hi = recordCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long midId = idOf(mid);
+                if (midId < id) {
+                    lo = mid + 1;
+                } else if (midId > id) {
+                    hi = mid - 1;
+                } else {
+                    record = mid;
+                    break;
+                }
+            }
+        } else {
+            for (int r = recordCount - 1; r >= 0 && record < 0; r--) {
+                if (idOf(r) == id && chunkOf(r).get(offsetOf(r) + REMOVED) == 0) {
+                    record = r;
+                }
+            }
+        }
+        return record >= 0 && chunkOf(record).get(offsetOf(record) + REMOVED) == 0 ? record : -1;
+    }
+
+    /**
+     * Returns the ids of a batch that belong to live records: by binary search while ids were added
+     * in increasing order, otherwise by one scan of the records for the whole batch.
+     */
+    private Set<Long> liveIds(Event[] batch) {
+        Set<Long> live = new HashSet<>();
+        if (idsAscending) {
+            for (Event event : batch) {
+                if (findRecord(event.getId()) >= 0) {
+                    live.add(event.getId());
+                }
+            }
+            return live;
+        }
+        Set<Long> wanted = new HashSet<>();
+        for (Event event : batch) {
+            wanted.add(event.getId());
+        }
+        for (int r = 0; r < recordCount; r++) {
+            if (wanted.contains(idOf(r)) && chunkOf(r).get(offsetOf(r) + REMOVED) == 0) {
+                live.add(idOf(r));
+            }
+        }
+        return live;
+    }
+
+    private long idOf(int record) {
+        return chunkOf(record).getLong(offsetOf(record) + ID);
+    }
+
+    private int next(int record) {
+        return chunkOf(record).getInt(offsetOf(record) + NEXT);
+    }
+
+    private ByteBuffer chunkOf(int record) {
+        return records.get(record >>> CHUNK_BITS);
+    }
+
+    private static int offsetOf(int record) {
+        return (record & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES;
+    }
+
+    /**
+     * Appends a name to the arena.
+     * @return the reference of the stored name
+     */
+    private long storeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Event name is too long: " + bytes.length + " bytes");
+        }
+        ByteBuffer chunk = arena.get(arena.size() - 1);
+        if (chunk.remaining() < 2 + bytes.length) {
+            int capacity = Math.min(MAX_ARENA_CHUNK, chunk.capacity() * 2);
+            chunk = ByteBuffer.allocateDirect(Math.max(capacity, 2 + bytes.length));
+            arena.add(chunk);
+        }
+        long reference = ((long) (arena.size() - 1) << 32) | chunk.position();
+        chunk.putShort((short) bytes.length);
+        chunk.put(bytes);
+        return reference;
+    }
+
+    private String loadName(long reference) {
+        ByteBuffer chunk = arena.get((int) (reference >>> 32));
+        int at = (int) reference;
+        byte[] bytes = new byte[chunk.getShort(at) & 0xFFFF];
+        chunk.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean nameEquals(long reference, byte[] name) {
+        ByteBuffer chunk = arena.get((int) (reference >>> 32));
+        int at = (int) reference;
+        if ((chunk.getShort(at) & 0xFFFF) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (chunk.get(at + 2 + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chain heads, plus one, 0 if none, for a range of keys such as epoch days, kept in a direct buffer.
+     * The range grows to at least twice its span, so keys added in any order cost amortized O(1).
+     */
+    private static class HeadTable {
+        private ByteBuffer heads = ByteBuffer.allocateDirect(0);
+        private long first;
+        private int capacity;
+
+        private int get(long key) {
+            return key >= first && key < first + capacity ? heads.getInt((int) (key - first) * 4) : 0;
+        }
+
+        private void set(long key, int head) {
+            if (capacity == 0) {
+                first = key;
+            }
+            if (key < first || key >= first + capacity) {
+                grow(key);
+            }
+            heads.putInt((int) (key - first) * 4, head);
+        }
+
+        private void grow(long key) {
+            long newFirst = Math.min(first, key);
+            long newEnd = Math.max(first + capacity, key + 1);
+            long span = Math.max(newEnd - newFirst, 2L * capacity);
+            if (key < first) {
+                newFirst = newEnd - span;
+            }
+            if (span > Integer.MAX_VALUE / 4) {
+                throw new IllegalArgumentException("Dates span too many days");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) span * 4);
+            for (int slot = 0; slot < capacity; slot++) {
+                grown.putInt((int) (first - newFirst + slot) * 4, heads.getInt(slot * 4));
+            }
+            heads = grown;
+            first = newFirst;
+            capacity = (int) span;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+*Sweep that finds the overlapping pairs among the intervals of one day. Items are fed in start
+*order and the sweep keeps the ones still running; an item ending by a start cannot overlap it or
+*anything starting later, so each new item is only compared with the running ones and the work
+*follows the number of items and overlaps rather than the number of pairs.
+*A sweep is not safe for concurrent use.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+
+public class OverlapSweep<T> {
+    private Function<T, TimeInterval> intervalOf;
+    private List<T> active;
+
+    /**
+     * Creates a sweep over items of any type.
+     * @param intervalOf returns the time interval of an item
+     */
+    public OverlapSweep(Function<T, TimeInterval> intervalOf) {
+        this.intervalOf = intervalOf;
+        this.active = new ArrayList<>();
+    }
+
+    /**
+     * Adds the next item and reports each running item it overlaps, in the order they were added.
+     * Overlap follows {@link TimeInterval#overlaps(TimeInterval)}.
+     * @param item        the item, starting no earlier than any item added since the last {@link #clear()}
+     * @param overlapping receives each overlapping running item and then the new item
+     */
+    public void add(T item, BiConsumer<T, T> overlapping) {
+        TimeInterval interval = intervalOf.apply(item);
+        active.removeIf(open -> !intervalOf.apply(open).getEnd().isAfter(interval.getStart()));
+        for (T open : active) {
+            if (intervalOf.apply(open).overlaps(interval)) {
+                overlapping.accept(open, item);
+            }
+        }
+        active.add(item);
+    }
+
+    /**
+     * Forgets every running item, to start the sweep of another day.
+     */
+    public void clear() {
+        active.clear();
+    }
+}
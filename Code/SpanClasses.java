@@ -0,0 +1,52 @@
+/**
+*Span classes for indexing recurring events by the length of their date range. Class k holds the
+*events whose range covers at most 2^k days, so the events of class k that cover a given day all
+*start within the 2^k days before it. An index keyed by weekday and span class, then by start day,
+*finds the events covering a day by searching that window of start days in each class, at a cost
+*that follows the number of events near the day rather than the size of the calendar.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+public final class SpanClasses {
+    /** The number of span classes; the last one holds every longer range. */
+    public static final int COUNT = 40;
+
+    private SpanClasses() {
+    }
+
+    /**
+     * Returns the slot of a (weekday, span class) index holding an event for one of its weekdays.
+     * @param weekday  the weekday mask bit, 0 for Monday through 6 for Sunday
+     * @param startDay the epoch day the event's range starts on
+     * @param endDay   the epoch day the event's range ends on
+     * @return the slot, from 0 to {@code 7 * COUNT - 1}
+     */
+    public static int slot(int weekday, long startDay, long endDay) {
+        return weekday * COUNT + of(startDay, endDay);
+    }
+
+    /**
+     * Returns the span class of a range: the smallest k such that it covers at most 2^k days.
+     * @param startDay the epoch day the range starts on
+     * @param endDay   the epoch day the range ends on
+     * @return the span class, from 0 to {@code COUNT - 1}
+     */
+    public static int of(long startDay, long endDay) {
+        long span = endDay - startDay + 1;
+        return span <= 1 ? 0 : Math.min(COUNT - 1, 64 - Long.numberOfLeadingZeros(span - 1));
+    }
+
+    /**
+     * Returns the earliest start day of an event of a span class that can cover a day.
+     * @param day       the epoch day
+     * @param spanClass the span class
+     * @return the earliest possible start day, or {@code Long.MIN_VALUE} for the last class
+     */
+    public static long earliestStart(long day, int spanClass) {
+        return spanClass >= COUNT - 1 ? Long.MIN_VALUE : day - (1L << spanClass) + 1;
+    }
+}
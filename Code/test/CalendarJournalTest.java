@@ -0,0 +1,178 @@
+/**
+*Tests for CalendarJournal: recovering a calendar from its journal and snapshots, and what recovery
+*does with a record torn by a crash, a corrupt record and a file that is not a journal.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+class CalendarJournalTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversAddsAndRemovesAcrossSessions() throws IOException {
+        assertFalse(CalendarJournal.exists(directory.toString()));
+        MyCalendar calendar = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), calendar);
+        Event dentist = oneTime("Dentist", 9, 0);
+        calendar.add(dentist);
+        calendar.add(oneTime("Review", 10, 0));
+        calendar.add(new Event("Yoga", new TimeInterval(LocalTime.of(6, 30), LocalTime.of(7, 30, 15)),
+                DAY, DAY.plusDays(90), Event.parseDays("MTF")));
+        calendar.remove(dentist);
+        journal.close();
+
+        assertTrue(CalendarJournal.exists(directory.toString()));
+        MyCalendar recovered = recover();
+        assertEquals(describe(calendar), describe(recovered));
+        assertEquals(2, recovered.getAllOneTimeEvents().size() + recovered.getAllRecurringEvents().size());
+    }
+
+    @Test
+    void recoversFromACompactedSnapshotAndTheJournalAfterIt() throws IOException {
+        MyCalendar calendar = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), calendar);
+        for (int i = 0; i < 20; i++) {
+            calendar.add(oneTime("Before " + i, 8 + i % 10, 0));
+        }
+        calendar.compactJournal().join();
+        calendar.add(oneTime("After", 20, 0));
+        calendar.removeOneTimeEventsOn(DAY.plusDays(3));
+        journal.close();
+
+        assertEquals(describe(calendar), describe(recover()));
+    }
+
+    @Test
+    void stopsAtATornRecordAndReportsIt() throws IOException {
+        MyCalendar calendar = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), calendar);
+        calendar.add(oneTime("Kept", 9, 0));
+        journal.sync();
+        Path file = onlyJournal();
+        long kept = Files.size(file);
+        calendar.add(oneTime("Torn", 10, 0));
+        journal.close();
+
+        // A crash in the middle of writing the second record
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, (int) (kept + (bytes.length - kept) / 2)));
+
+        MyCalendar recovered = new MyCalendar();
+        CalendarJournal again = CalendarJournal.recover(directory.toString(), recovered);
+        again.close();
+        assertEquals(List.of("a torn record at the end of " + file), again.getRecoveryErrors());
+        assertEquals(List.of("Kept"), names(recovered));
+    }
+
+    @Test
+    void stopsAtACorruptRecordAndReportsWhere() throws IOException {
+        MyCalendar calendar = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), calendar);
+        calendar.add(oneTime("Kept", 9, 0));
+        journal.sync();
+        Path file = onlyJournal();
+        long second = Files.size(file);
+        calendar.add(oneTime("Corrupt", 10, 0));
+        calendar.add(oneTime("After", 11, 0));
+        journal.close();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[(int) second + 12] ^= 1;
+        Files.write(file, bytes);
+
+        MyCalendar recovered = new MyCalendar();
+        CalendarJournal again = CalendarJournal.recover(directory.toString(), recovered);
+        again.close();
+        assertEquals(List.of("a corrupt record at byte " + second + " of " + file), again.getRecoveryErrors());
+        assertEquals(List.of("Kept"), names(recovered));
+    }
+
+    @Test
+    void skipsAFileThatIsNotAJournal() throws IOException {
+        Path file = directory.resolve("journal.1");
+        Files.write(file, "Dentist\n3/4/24 9:00 9:45\n".getBytes());
+
+        MyCalendar recovered = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), recovered);
+        journal.close();
+        assertEquals(List.of(file + ": not a calendar journal"), journal.getRecoveryErrors());
+        assertEquals(List.of(), names(recovered));
+    }
+
+    @Test
+    void refusesAnEventItCannotStoreWithoutChangingTheCalendar() throws IOException {
+        MyCalendar calendar = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), calendar);
+        Event blink = new Event("Blink", new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 1)), DAY);
+
+        assertThrows(IllegalArgumentException.class, () -> calendar.add(blink));
+        journal.close();
+        assertEquals(List.of(), names(calendar));
+        assertEquals(List.of(), names(recover()));
+    }
+
+    private MyCalendar recover() throws IOException {
+        MyCalendar recovered = new MyCalendar();
+        CalendarJournal journal = CalendarJournal.recover(directory.toString(), recovered);
+        journal.close();
+        assertEquals(List.of(), journal.getRecoveryErrors());
+        return recovered;
+    }
+
+    private Path onlyJournal() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> journals = files.filter(path -> path.getFileName().toString().startsWith("journal.")).toList();
+            assertEquals(1, journals.size(), journals.toString());
+            return journals.get(0);
+        }
+    }
+
+    private static Event oneTime(String name, int hour, int minute) {
+        return new Event(name, new TimeInterval(LocalTime.of(hour, minute), LocalTime.of(hour, minute + 30)),
+                DAY.plusDays(name.length() % 5));
+    }
+
+    private static List<String> names(MyCalendar calendar) {
+        List<String> names = new ArrayList<>();
+        calendar.getAllOneTimeEvents().forEach(event -> names.add(event.getName()));
+        calendar.getAllRecurringEvents().forEach(event -> names.add(event.getName()));
+        return names;
+    }
+
+    private static List<String> describe(MyCalendar calendar) {
+        List<String> lines = new ArrayList<>();
+        for (List<Event> events : List.of(calendar.getAllOneTimeEvents(), calendar.getAllRecurringEvents())) {
+            for (Event event : events) {
+                lines.add(event.getName() + " " + event.getTimeInterval() + " " + event.getStartDate() + " "
+                        + event.getEndDate() + " " + event.getDayMask());
+            }
+        }
+        lines.sort(null);
+        return lines;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+*Tests for CalendarSet: per-date lookups across calendars inside and outside the indexed window,
+*the combined free/busy time, and cross-calendar conflicts against a check of every pair of events.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+
+class CalendarSetTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 60;
+
+    @Test
+    void findsEventsAndBusyCalendarsAndSeesLaterChanges() {
+        CalendarSet set = new CalendarSet(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1));
+        MyCalendar alice = new MyCalendar();
+        MyCalendar bob = new MyCalendar();
+        set.add("alice", alice);
+        set.add("bob", bob);
+        Event dentist = new Event("Dentist", interval(9, 0, 10, 0), FIRST_DAY.plusDays(3));
+        alice.add(dentist);
+        Event far = new Event("Far", interval(9, 30, 11, 0), FIRST_DAY.plusDays(400));
+        bob.add(far);
+
+        assertEquals(Map.of("alice", List.of(dentist)), set.getEventsForDate(FIRST_DAY.plusDays(3)));
+        assertEquals(List.of("alice"), set.getBusyCalendars(FIRST_DAY.plusDays(3), interval(9, 45, 12, 0)));
+        // Outside the window every calendar is asked
+        assertEquals(List.of("bob"), set.getBusyCalendars(FIRST_DAY.plusDays(400), interval(9, 45, 12, 0)));
+
+        // A change after the first query is seen by the next one
+        Event review = new Event("Review", interval(9, 30, 10, 30), FIRST_DAY.plusDays(3));
+        bob.add(review);
+        assertEquals(List.of("alice", "bob"), set.getBusyCalendars(FIRST_DAY.plusDays(3), interval(9, 45, 12, 0)));
+        assertEquals(1, set.findCrossConflicts(FIRST_DAY.plusDays(3)).size());
+        assertEquals("[09:00 - 10:30]", set.getFreeBusy().getBusy(FIRST_DAY.plusDays(3)).toString());
+        assertThrows(IllegalArgumentException.class, () -> set.add("bob", new MyCalendar()));
+    }
+
+    @Test
+    void findsTheSameCrossConflictsAsCheckingEveryPair() {
+        CalendarSet set = new CalendarSet(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1));
+        List<String> names = new ArrayList<>();
+        List<MyCalendar> calendars = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            MyCalendar calendar = new MyCalendar();
+            new EventGenerator(17 + i, FIRST_DAY, DAYS + 10, 0.2).generate(150).forEach(calendar::add);
+            names.add("calendar " + i);
+            calendars.add(calendar);
+            set.add(names.get(i), calendar);
+        }
+
+        Set<String> found = new TreeSet<>();
+        for (Conflict conflict : set.findCrossConflicts(FIRST_DAY.minusDays(5), FIRST_DAY.plusDays(DAYS + 15))) {
+            found.add(key(conflict.getDate(), conflict.getFirstCalendar(), conflict.getFirst(),
+                    conflict.getSecondCalendar(), conflict.getSecond()));
+        }
+
+        Set<String> expected = new TreeSet<>();
+        for (LocalDate date = FIRST_DAY.minusDays(5); !date.isAfter(FIRST_DAY.plusDays(DAYS + 15)); date = date.plusDays(1)) {
+            for (int a = 0; a < calendars.size(); a++) {
+                for (int b = a + 1; b < calendars.size(); b++) {
+                    for (Event first : calendars.get(a).getEventsForDate(date)) {
+                        for (Event second : calendars.get(b).getEventsForDate(date)) {
+                            if (first.getTimeInterval().overlaps(second.getTimeInterval())) {
+                                expected.add(key(date, names.get(a), first, names.get(b), second));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    /**
+     * Describes a conflict independently of which of its two events is reported first.
+     */
+    private static String key(LocalDate date, String firstCalendar, Event first, String secondCalendar, Event second) {
+        String a = firstCalendar + "#" + first.getId();
+        String b = secondCalendar + "#" + second.getId();
+        return date + " " + (a.compareTo(b) < 0 ? a + " " + b : b + " " + a);
+    }
+
+    private static TimeInterval interval(int startHour, int startMinute, int endHour, int endMinute) {
+        return new TimeInterval(LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+*Tests for CalendarSnapshot: a round trip of both event kinds, and corrupt or foreign files
+*failing with an IOException instead of loading wrong events.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+class CalendarSnapshotTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        List<Event> oneTime = List.of(
+                new Event("Standup", new TimeInterval(LocalTime.of(9, 0, 30), LocalTime.of(9, 15, 45)), DAY),
+                new Event("Standup", new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 15)), DAY.plusDays(1)),
+                new Event("Late", new TimeInterval(LocalTime.of(23, 0), LocalTime.of(23, 59, 59)), DAY));
+        List<Event> recurring = List.of(new Event("Review", new TimeInterval(LocalTime.of(0, 0, 1), LocalTime.of(1, 0)),
+                DAY, DAY.plusDays(300), Event.parseDays("MWF")));
+        Path file = directory.resolve("calendar.snapshot");
+        CalendarSnapshot.write(file.toString(), oneTime, recurring);
+
+        List<Event> read = new ArrayList<>();
+        assertEquals(4, CalendarSnapshot.read(file.toString(), read::add));
+        List<Event> expected = new ArrayList<>(oneTime);
+        expected.addAll(recurring);
+        assertEquals(describe(expected), describe(read));
+        // Events of one snapshot share their names
+        assertSame(read.get(0).getName(), read.get(1).getName());
+    }
+
+    @Test
+    void refusesTimesFinerThanASecondBeforeTouchingTheFile() throws IOException {
+        Path file = directory.resolve("calendar.snapshot");
+        Files.write(file, new byte[] {1, 2, 3});
+        Event event = new Event("Blink", new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 1)), DAY);
+
+        assertThrows(IllegalArgumentException.class, () -> CalendarSnapshot.write(file.toString(), List.of(event), List.of()));
+        assertEquals(3, Files.size(file));
+    }
+
+    @Test
+    void rejectsAFileThatIsNotASnapshot() throws IOException {
+        Path file = directory.resolve("events.txt");
+        Files.write(file, "Dentist\n3/4/24 9:00 9:45\n".getBytes());
+
+        IOException e = assertThrows(IOException.class, () -> CalendarSnapshot.read(file.toString(), event -> { }));
+        assertTrue(e.getMessage().contains("not a calendar snapshot"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptFiles() throws IOException {
+        byte[] good = oneEventSnapshot();
+        // Layout: magic 0, version 4, name count 6, name length 10, "A" 14, one-time count 15,
+        // record 19 (name index, day, start, end), recurring count 35
+        assertCorrupt(Arrays.copyOf(good, good.length - 2), "truncated");
+        assertCorrupt(withInt(good, 6, -1), "bad name count -1");
+        assertCorrupt(withInt(good, 10, Integer.MAX_VALUE), "bad name length count");
+        assertCorrupt(withInt(good, 15, 1 << 20), "bad one-time event count");
+        assertCorrupt(withInt(good, 19, 1), "bad name index 1");
+        assertCorrupt(withInt(good, 27, 86_400), "bad time 86400");
+        // An end before the start is refused by the event itself
+        assertCorrupt(withInt(good, 31, 0), "Snapshot is corrupt: ");
+    }
+
+    private byte[] oneEventSnapshot() throws IOException {
+        Path file = directory.resolve("good.snapshot");
+        CalendarSnapshot.write(file.toString(),
+                List.of(new Event("A", new TimeInterval(LocalTime.of(9, 0), LocalTime.of(10, 0)), DAY)), List.of());
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(39, bytes.length);
+        return bytes;
+    }
+
+    private void assertCorrupt(byte[] bytes, String message) throws IOException {
+        Path file = directory.resolve("corrupt.snapshot");
+        Files.write(file, bytes);
+        IOException e = assertThrows(IOException.class, () -> CalendarSnapshot.read(file.toString(), event -> { }));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    static List<String> describe(List<Event> events) {
+        List<String> lines = new ArrayList<>();
+        for (Event event : events) {
+            lines.add(event.getName() + " " + event.getTimeInterval() + " " + event.getStartDate() + " "
+                    + event.getEndDate() + " " + event.getDayMask() + " " + event.isRecurring());
+        }
+        return lines;
+    }
+}
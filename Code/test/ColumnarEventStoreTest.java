@@ -0,0 +1,132 @@
+/**
+*Tests for ColumnarEventStore: date lookups against MyCalendar while events are added between
+*queries, events rebuilt with their ids and fields, and events the columns cannot hold.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+class ColumnarEventStoreTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 400;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheSameEventsAsMyCalendarWhileEventsArrive() {
+        Random random = new Random(13);
+        List<Event> events = new ArrayList<>(new EventGenerator(13, FIRST_DAY, DAYS, 0.3).generate(3000));
+        // Recurring events of every span class, the longest ones in the last class
+        for (int i = 0; i < 100; i++) {
+            LocalDate start = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            events.add(new Event("Rule " + i, new TimeInterval(LocalTime.of(1, 0, random.nextInt(60)), LocalTime.of(2, 0)),
+                    start, start.plusDays(random.nextInt(i % 3 == 0 ? 100_000 : 40)), 1 + random.nextInt(0x7F)));
+        }
+
+        ColumnarEventStore store = new ColumnarEventStore();
+        MyCalendar calendar = new MyCalendar();
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            assertEquals(i, store.add(event));
+            calendar.add(event);
+            // Queries in between build the indexes, which later adds must keep up to date
+            if (i % 50 == 0) {
+                assertSameEvents(calendar, store, event.getStartDate());
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            assertSameEvents(calendar, store, FIRST_DAY.plusDays(random.nextInt(DAYS + 100) - 50));
+        }
+        assertEquals(events.size(), store.size());
+    }
+
+    @Test
+    void rebuildsEventsWithTheirIdsAndFields() {
+        ColumnarEventStore store = new ColumnarEventStore();
+        Event weekly = new Event("Weekly", new TimeInterval(LocalTime.of(9, 0, 5), LocalTime.of(10, 0)),
+                FIRST_DAY, FIRST_DAY.plusDays(60), Event.parseDays("MR"));
+        Event once = new Event("Once", new TimeInterval(LocalTime.of(13, 0), LocalTime.of(13, 30)), FIRST_DAY.plusDays(3));
+        store.add(once);
+        store.add(weekly);
+
+        assertEquals(once.getId(), store.get(0).getId());
+        assertEquals(describe(once), describe(store.get(0)));
+        assertEquals(describe(weekly), describe(store.get(1)));
+        assertEquals(weekly.getId(), store.getId(1));
+        assertEquals("Weekly", store.getName(1));
+        assertTrue(store.isRecurring(1));
+        // Thursday the 4th: the one-time event first, then the recurring one
+        assertArrayEquals(new int[] {0, 1}, store.rowsOn(FIRST_DAY.plusDays(3)));
+
+        MyCalendar calendar = new MyCalendar();
+        store.copyTo(calendar);
+        assertEquals(List.of(weekly.getId()), ids(calendar.getEventsForDate(FIRST_DAY)));
+    }
+
+    @Test
+    void loadsSnapshotsAndRefusesTimesFinerThanASecond() throws IOException {
+        MyCalendar calendar = new MyCalendar();
+        new EventGenerator(14, FIRST_DAY, 60, 0.2).generate(200).forEach(calendar::add);
+        String snapshot = directory.resolve("calendar.snapshot").toString();
+        calendar.saveSnapshot(snapshot);
+
+        ColumnarEventStore store = new ColumnarEventStore();
+        assertEquals(200, store.loadSnapshot(snapshot));
+        for (int i = 0; i < 60; i++) {
+            LocalDate date = FIRST_DAY.plusDays(i);
+            List<String> expected = new ArrayList<>();
+            calendar.getEventsForDate(date).forEach(event -> expected.add(describe(event)));
+            List<String> actual = new ArrayList<>();
+            store.getEventsForDate(date).forEach(event -> actual.add(describe(event)));
+            expected.sort(null);
+            actual.sort(null);
+            assertEquals(expected, actual, date.toString());
+        }
+
+        Event blink = new Event("Blink", new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 1)), FIRST_DAY);
+        assertThrows(IllegalArgumentException.class, () -> store.add(blink));
+        assertEquals(200, store.size());
+    }
+
+    private static void assertSameEvents(MyCalendar calendar, ColumnarEventStore store, LocalDate date) {
+        Set<Long> expected = new TreeSet<>(ids(calendar.getEventsForDate(date)));
+        Set<Long> actual = new TreeSet<>();
+        for (int row : store.rowsOn(date)) {
+            actual.add(store.getId(row));
+        }
+        assertEquals(expected, actual, date.toString());
+    }
+
+    private static List<Long> ids(List<Event> events) {
+        List<Long> ids = new ArrayList<>();
+        events.forEach(event -> ids.add(event.getId()));
+        return ids;
+    }
+
+    private static String describe(Event event) {
+        return event.getName() + " " + event.getTimeInterval() + " " + event.getStartDate() + " "
+                + event.getEndDate() + " " + event.getDayMask() + " " + event.isRecurring();
+    }
+}
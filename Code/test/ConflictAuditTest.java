@@ -0,0 +1,104 @@
+/**
+*Tests for ConflictAudit: the conflicts of a whole calendar and of a date range against a check of
+*every pair of events of each day, and the order they are reported in.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+
+class ConflictAuditTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 200;
+
+    @Test
+    void findsTheSameConflictsAsCheckingEveryPair() {
+        MyCalendar calendar = new MyCalendar();
+        List<Event> events = new EventGenerator(23, FIRST_DAY, DAYS, 0.1).generate(1500);
+        events.forEach(calendar::add);
+        LocalDate last = FIRST_DAY;
+        for (Event event : events) {
+            last = event.getEndDate().isAfter(last) ? event.getEndDate() : last;
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        long count = new ConflictAudit(calendar, new ForkJoinPool(4)).auditAll(conflicts::add);
+
+        Set<String> expected = bruteForce(calendar, FIRST_DAY, last);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), count);
+        assertEquals(expected, keys(conflicts));
+        for (int i = 1; i < conflicts.size(); i++) {
+            Conflict previous = conflicts.get(i - 1);
+            Conflict next = conflicts.get(i);
+            assertTrue(previous.getDate().isBefore(next.getDate()) || (previous.getDate().equals(next.getDate())
+                    && !previous.getSecond().getStartTime().isAfter(next.getSecond().getStartTime())), next.toString());
+        }
+        assertNull(conflicts.get(0).getFirstCalendar());
+    }
+
+    @Test
+    void auditsOnlyTheDaysOfARange() {
+        MyCalendar calendar = new MyCalendar();
+        new EventGenerator(24, FIRST_DAY, DAYS, 0.2).generate(800).forEach(calendar::add);
+        LocalDate from = FIRST_DAY.plusDays(37);
+        LocalDate to = FIRST_DAY.plusDays(101);
+
+        List<Conflict> conflicts = new ArrayList<>();
+        new ConflictAudit(calendar).audit(from, to, conflicts::add);
+
+        assertEquals(bruteForce(calendar, from, to), keys(conflicts));
+    }
+
+    @Test
+    void anEmptyCalendarHasNoConflicts() {
+        assertEquals(0, new ConflictAudit(new MyCalendar()).auditAll(conflict -> { }));
+    }
+
+    private static Set<String> bruteForce(MyCalendar calendar, LocalDate from, LocalDate to) {
+        Set<String> conflicts = new TreeSet<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<Event> events = calendar.getEventsForDate(date);
+            for (int a = 0; a < events.size(); a++) {
+                for (int b = a + 1; b < events.size(); b++) {
+                    if (events.get(a).getTimeInterval().overlaps(events.get(b).getTimeInterval())) {
+                        conflicts.add(key(date, events.get(a), events.get(b)));
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static Set<String> keys(List<Conflict> conflicts) {
+        Set<String> keys = new TreeSet<>();
+        for (Conflict conflict : conflicts) {
+            keys.add(key(conflict.getDate(), conflict.getFirst(), conflict.getSecond()));
+        }
+        assertEquals(conflicts.size(), keys.size());
+        return keys;
+    }
+
+    /**
+     * Describes a conflict independently of which of its two events is reported first.
+     */
+    private static String key(LocalDate date, Event a, Event b) {
+        return date + " " + Math.min(a.getId(), b.getId()) + " " + Math.max(a.getId(), b.getId());
+    }
+}
@@ -0,0 +1,102 @@
+/**
+*Tests for DayIntervalIndex: conflict queries against TimeInterval.overlaps over every event,
+*and the merged busy time of a day.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+class DayIntervalIndexTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 2);
+
+    @Test
+    void findsTheSameConflictsAsCheckingEveryEvent() {
+        Random random = new Random(6);
+        for (int round = 0; round < 50; round++) {
+            List<Event> events = new ArrayList<>();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                events.add(event(random.nextInt(24 * 60), random.nextInt(180)));
+            }
+            DayIntervalIndex index = new DayIntervalIndex(events);
+            List<Event> sorted = new ArrayList<>(events);
+            sorted.sort(Event.TIME_ORDER);
+            assertEquals(sorted, index.getEvents());
+
+            for (int query = 0; query < 50; query++) {
+                int start = random.nextInt(24 * 60);
+                TimeInterval interval = interval(start, random.nextInt(120));
+                List<Event> expected = new ArrayList<>();
+                for (Event event : sorted) {
+                    if (event.getTimeInterval().overlaps(interval)) {
+                        expected.add(event);
+                    }
+                }
+                assertEquals(expected, index.findConflicts(interval), interval.toString());
+                assertEquals(!expected.isEmpty(), index.hasConflict(interval), interval.toString());
+                assertEquals(expected.isEmpty() ? null : expected.get(0), index.findFirstConflict(interval));
+            }
+        }
+    }
+
+    @Test
+    void touchingEventsDoNotConflict() {
+        DayIntervalIndex index = new DayIntervalIndex(List.of(event(9 * 60, 60), event(11 * 60, 30)));
+
+        assertFalse(index.hasConflict(interval(10 * 60, 60)));
+        assertNull(index.findFirstConflict(interval(10 * 60, 60)));
+        assertEquals(List.of(), index.findConflicts(interval(8 * 60, 60)));
+    }
+
+    @Test
+    void mergesOverlappingAndTouchingEventsIntoBusyTime() {
+        DayIntervalIndex index = new DayIntervalIndex(List.of(
+                event(13 * 60, 30), event(9 * 60, 60), event(9 * 60 + 30, 15), event(10 * 60, 30),
+                event(12 * 60, 0), event(15 * 60, 10)));
+
+        assertArrayEquals(new long[] {
+                nanos(9 * 60), nanos(10 * 60 + 30),
+                nanos(12 * 60), nanos(12 * 60),
+                nanos(13 * 60), nanos(13 * 60 + 30),
+                nanos(15 * 60), nanos(15 * 60 + 10)}, index.getBusy());
+        assertEquals(0, new DayIntervalIndex(List.of()).getBusy().length);
+    }
+
+    @Test
+    void keepsTimesFinerThanASecond() {
+        Event blink = new Event("Blink", new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 0, 0, 900)), DAY);
+        DayIntervalIndex index = new DayIntervalIndex(List.of(blink));
+
+        assertFalse(index.hasConflict(new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 0, 0, 500))));
+        assertEquals(List.of(blink), index.findConflicts(new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 0, 0, 501))));
+        assertArrayEquals(new long[] {9 * 3_600_000_000_000L + 500, 9 * 3_600_000_000_000L + 900}, index.getBusy());
+    }
+
+    private static Event event(int startMinute, int minutes) {
+        return new Event("E" + startMinute, interval(startMinute, minutes), DAY);
+    }
+
+    private static TimeInterval interval(int startMinute, int minutes) {
+        int end = Math.min(startMinute + minutes, 24 * 60 - 1);
+        return new TimeInterval(LocalTime.of(startMinute / 60, startMinute % 60), LocalTime.of(end / 60, end % 60));
+    }
+
+    private static long nanos(int minute) {
+        return minute * 60_000_000_000L;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+*Tests for EventFileParser: both record kinds, CRLF input, and the line numbers of rejected records.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+class EventFileParserTest {
+    private List<Event> events = new ArrayList<>();
+    private EventFileParser parser = new EventFileParser(events::add);
+
+    @Test
+    void parsesOneTimeAndRecurringRecords() throws IOException {
+        parse("Dentist\n3/4/24 9:00 9:45\nYoga Class\nMTF 6:30 7:30 9/1/2024 12/31/24\n");
+
+        assertEquals(List.of(), parser.getErrors());
+        assertEquals(2, parser.getRecordCount());
+        Event dentist = events.get(0);
+        assertEquals("Dentist", dentist.getName());
+        assertEquals(LocalDate.of(2024, 3, 4), dentist.getDate());
+        assertEquals(LocalTime.of(9, 45), dentist.getEndTime());
+        Event yoga = events.get(1);
+        assertTrue(yoga.isRecurring());
+        assertEquals(Event.parseDays("MTF"), yoga.getDayMask());
+        assertEquals(LocalDate.of(2024, 9, 1), yoga.getStartDate());
+        assertEquals(LocalDate.of(2024, 12, 31), yoga.getEndDate());
+    }
+
+    @Test
+    void acceptsCrlfAndBlankLinesBetweenRecords() throws IOException {
+        parse("Dentist\r\n3/4/24 9:00 9:45\r\n\r\nReview\r\n3/5/24 10:00 11:00");
+
+        assertEquals(List.of(), parser.getErrors());
+        assertEquals(List.of("Dentist", "Review"), List.of(events.get(0).getName(), events.get(1).getName()));
+    }
+
+    @Test
+    void reportsBadRecordsWithTheirLineNumbersAndKeepsTheRest() throws IOException {
+        parse("Good\n3/4/24 9:00 9:45\n"
+                + "Bad month\n13/4/24 9:00 9:45\n"
+                + "Bad minute\n3/4/24 9:5 9:45\n"
+                + "Trailing\n3/4/24 9:00 9:45 extra\n"
+                + "Also good\n3/5/24 9:00 9:45\n"
+                + "Dangling\n");
+
+        assertEquals(2, parser.getRecordCount());
+        List<String> errors = parser.getErrors();
+        assertEquals(4, errors.size(), errors.toString());
+        assertTrue(errors.get(0).startsWith("line 4: "), errors.get(0));
+        assertTrue(errors.get(1).startsWith("line 6: expected minute at column "), errors.get(1));
+        assertEquals("line 8: unexpected text after the last field", errors.get(2));
+        assertEquals("line 11: event 'Dangling' has no details line", errors.get(3));
+    }
+
+    @Test
+    void reportsAMissingFieldWithItsColumn() {
+        parser.parse(ByteBuffer.wrap("Short\n3/4/24 9:00\n".getBytes(StandardCharsets.US_ASCII)), 1);
+
+        assertEquals(List.of("line 2: missing field at column 12"), parser.getErrors());
+    }
+
+    @Test
+    void countsLinesFromTheFirstLineNumberOfABuffer() {
+        parser.parse(ByteBuffer.wrap("Empty\n\n".getBytes(StandardCharsets.US_ASCII)), 41);
+
+        assertEquals(List.of("line 42: event 'Empty' has an empty details line"), parser.getErrors());
+    }
+
+    private void parse(String text) throws IOException {
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}
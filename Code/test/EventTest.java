@@ -0,0 +1,120 @@
+/**
+*Tests for Event's recurrence rule: weekday masks, stepping from one matching weekday to the next,
+*and the first and last occurrences, checked against a day-by-day walk.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+class EventTest {
+    private static final TimeInterval MORNING = new TimeInterval(LocalTime.of(9, 0), LocalTime.of(10, 0));
+    // A Monday
+    private static final LocalDate MONDAY = LocalDate.of(2024, 9, 2);
+
+    @Test
+    void parsesAndFormatsDayLetters() {
+        int mask = Event.parseDays("MWF");
+        assertEquals(0b10101, mask);
+        assertEquals("MWF", Event.formatDays(mask));
+        assertEquals(0x7F, Event.parseDays("SMTWRFA"));
+        assertEquals(1 << 6, Event.dayBit(MONDAY.minusDays(1)));
+    }
+
+    @Test
+    void stepsToTheNextAndPreviousMatchingWeekday() {
+        for (int mask = 1; mask <= 0x7F; mask++) {
+            for (int offset = 0; offset < 7; offset++) {
+                LocalDate day = MONDAY.plusDays(offset);
+                assertEquals(walk(mask, day, 1), Event.daysUntil(mask, day), "mask " + mask + " from " + day);
+                assertEquals(walk(mask, day, -1), Event.daysSince(mask, day), "mask " + mask + " from " + day);
+            }
+        }
+    }
+
+    @Test
+    void occurrencesMatchADayByDayWalk() {
+        Random random = new Random(151);
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = MONDAY.plusDays(random.nextInt(30));
+            LocalDate end = start.plusDays(random.nextInt(60));
+            Event event = new Event("Rule", MORNING, start, end, random.nextInt(0x80));
+            LocalDate from = MONDAY.plusDays(random.nextInt(100) - 10);
+            LocalDate to = from.plusDays(random.nextInt(40));
+
+            List<LocalDate> expected = new ArrayList<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                if (event.occursOn(day)) {
+                    expected.add(day);
+                }
+            }
+            assertEquals(expected, list(event.occurrences(from, to)), event.toString());
+
+            List<LocalDate> all = list(event.occurrences(start, end));
+            assertEquals(all.isEmpty() ? null : all.get(0), event.getFirstOccurrence(), event.toString());
+            assertEquals(all.isEmpty() ? null : all.get(all.size() - 1), event.getLastOccurrence(), event.toString());
+        }
+    }
+
+    @Test
+    void aOneTimeEventOccursOnItsDateOnly() {
+        Event event = new Event("Dentist", MORNING, MONDAY);
+
+        assertEquals(List.of(MONDAY), list(event.occurrences(MONDAY.minusDays(7), MONDAY.plusDays(7))));
+        assertEquals(List.of(), list(event.occurrences(MONDAY.plusDays(1), MONDAY.plusDays(7))));
+        assertEquals(MONDAY, event.getFirstOccurrence());
+        assertFalse(event.occursOn(MONDAY.plusDays(7)));
+    }
+
+    @Test
+    void aRuleWithNoDaysNeverOccurs() {
+        Event event = new Event("Never", MORNING, MONDAY, MONDAY.plusDays(30), 0);
+        Iterator<LocalDate> it = event.occurrences(MONDAY, MONDAY.plusDays(30));
+
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        assertNull(event.getFirstOccurrence());
+        assertNull(event.getLastOccurrence());
+    }
+
+    @Test
+    void refusesAnEventThatEndsBeforeItStarts() {
+        TimeInterval backwards = new TimeInterval(LocalTime.of(10, 0), LocalTime.of(9, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> new Event("Backwards", backwards, MONDAY));
+    }
+
+    /**
+     * Counts the days from a day, stepping by {@code step}, to the first whose weekday is in the mask.
+     */
+    private static int walk(int mask, LocalDate day, int step) {
+        int days = 0;
+        while ((mask & Event.dayBit(day.plusDays((long) days * step))) == 0) {
+            days++;
+        }
+        return days;
+    }
+
+    private static List<LocalDate> list(Iterator<LocalDate> it) {
+        List<LocalDate> dates = new ArrayList<>();
+        it.forEachRemaining(dates::add);
+        return dates;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+*Tests for FreeBusy: busy and free time of a day, the isFree check against the events themselves,
+*and the first-free-slot search.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+
+class FreeBusyTest {
+    // A Monday
+    private static final LocalDate DAY = LocalDate.of(2024, 9, 2);
+
+    private MyCalendar calendar = new MyCalendar();
+    private FreeBusy freeBusy = new FreeBusy(calendar);
+
+    @Test
+    void mergesTheBusyTimeOfOneTimeAndRecurringEvents() {
+        calendar.add(event("Standup", "9:00", "9:30"));
+        calendar.add(event("Review", "9:15", "10:00"));
+        calendar.add(event("Lunch", "12:00", "13:00"));
+        calendar.add(new Event("Gym", interval("13:00", "13:45"), DAY.minusDays(7), DAY.plusDays(7), Event.parseDays("M")));
+
+        assertEquals("[09:00 - 10:00, 12:00 - 13:45]", freeBusy.getBusy(DAY).toString());
+        assertEquals("[]", freeBusy.getBusy(DAY.plusDays(1)).toString());
+        assertEquals("[08:00 - 09:00, 10:00 - 12:00, 13:45 - 17:00]",
+                freeBusy.getFree(DAY, LocalTime.of(8, 0), LocalTime.of(17, 0)).toString());
+        assertEquals("[10:30 - 11:00]", freeBusy.getFree(DAY, LocalTime.of(10, 30), LocalTime.of(11, 0)).toString());
+        assertEquals("[]", freeBusy.getFree(DAY, LocalTime.of(9, 10), LocalTime.of(9, 50)).toString());
+    }
+
+    @Test
+    void isFreeAgreesWithCheckingEveryEvent() {
+        Random random = new Random(16);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            int start = 6 * 60 + random.nextInt(14 * 60);
+            Event event = new Event("E" + i, minutes(start, start + 5 + random.nextInt(90)), DAY);
+            events.add(event);
+            calendar.add(event);
+        }
+        for (int i = 0; i < 2000; i++) {
+            int start = random.nextInt(23 * 60);
+            TimeInterval query = minutes(start, start + 1 + random.nextInt(60));
+            boolean overlaps = events.stream().anyMatch(event -> event.getTimeInterval().overlaps(query));
+            assertEquals(!overlaps, freeBusy.isFree(DAY, query), query.toString());
+        }
+    }
+
+    @Test
+    void anEmptyIntervalAtASeamBetweenTouchingEventsIsBusy() {
+        calendar.add(event("First", "9:00", "10:00"));
+        calendar.add(event("Second", "10:00", "11:00"));
+        TimeInterval seam = interval("10:00", "10:00");
+
+        assertFalse(freeBusy.isFree(DAY, seam));
+        assertTrue(freeBusy.isFree(DAY, interval("11:00", "12:00")));
+    }
+
+    @Test
+    void laysSlotsBackToBackAcrossDays() {
+        calendar.add(event("Morning", "8:00", "9:00"));
+        calendar.add(event("Late morning", "9:50", "12:00"));
+        calendar.add(new Event("All day", interval("8:00", "18:00"), DAY.plusDays(1), DAY.plusDays(1), 0x7F));
+
+        List<FreeBusy.Slot> slots = freeBusy.findFreeSlots(DAY, DAY.plusDays(7), LocalTime.of(8, 0), LocalTime.of(18, 0),
+                Duration.ofMinutes(25), 5);
+
+        assertEquals(List.of(DAY + " 09:00 - 09:25", DAY + " 09:25 - 09:50", DAY + " 12:00 - 12:25",
+                DAY + " 12:25 - 12:50", DAY + " 12:50 - 13:15"), strings(slots));
+        List<FreeBusy.Slot> later = freeBusy.findFreeSlots(DAY, DAY.plusDays(7), LocalTime.of(17, 0), LocalTime.of(18, 0),
+                Duration.ofHours(1), 2);
+        assertEquals(List.of(DAY + " 17:00 - 18:00", DAY.plusDays(2) + " 17:00 - 18:00"), strings(later));
+    }
+
+    @Test
+    void keepsTimesFinerThanASecond() {
+        calendar.add(new Event("Blink", new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 0, 0, 500)), DAY));
+
+        assertTrue(freeBusy.isFree(DAY, new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 1))));
+        assertEquals(List.of(new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 1)).toString()),
+                strings(freeBusy.getFree(DAY, LocalTime.of(9, 0), LocalTime.of(9, 1))));
+    }
+
+    @Test
+    void rejectsSlotsThatCannotBeFound() {
+        LocalTime start = LocalTime.of(8, 0);
+        LocalTime end = LocalTime.of(9, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> freeBusy.findFreeSlots(DAY, DAY, start, end, Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class, () -> freeBusy.findFreeSlots(DAY, DAY, start, end, Duration.ofMinutes(61), 1));
+        assertThrows(IllegalArgumentException.class, () -> freeBusy.findFreeSlots(DAY, DAY, start, end, Duration.ofMinutes(30), -1));
+        assertEquals(List.of(), freeBusy.findFreeSlots(DAY, DAY, start, end, Duration.ofMinutes(30), 0));
+    }
+
+    private static Event event(String name, String start, String end) {
+        return new Event(name, interval(start, end), DAY);
+    }
+
+    private static TimeInterval interval(String start, String end) {
+        return new TimeInterval(LocalTime.parse(pad(start)), LocalTime.parse(pad(end)));
+    }
+
+    private static String pad(String time) {
+        return time.length() == 4 ? "0" + time : time;
+    }
+
+    private static TimeInterval minutes(int start, int end) {
+        return new TimeInterval(LocalTime.of(start / 60, start % 60), LocalTime.of(end / 60, end % 60));
+    }
+
+    private static List<String> strings(List<?> items) {
+        List<String> strings = new ArrayList<>();
+        items.forEach(item -> strings.add(item.toString()));
+        return strings;
+    }
+}
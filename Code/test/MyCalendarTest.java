@@ -0,0 +1,191 @@
+/**
+*Tests for MyCalendar's conflict-checked adds: addIfNoConflict against a check of every occurrence,
+*and each batch policy of addAll against adding the batch one event at a time.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+
+class MyCalendarTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 120;
+
+    @Test
+    void addIfNoConflictAgreesWithCheckingEveryOccurrence() {
+        List<Event> candidates = new ArrayList<>(new EventGenerator(7, FIRST_DAY, DAYS, 0.3).generate(600));
+        Collections.shuffle(candidates, new Random(7));
+        MyCalendar calendar = new MyCalendar();
+        List<Event> added = new ArrayList<>();
+        for (Event event : candidates) {
+            boolean expected = added.stream().noneMatch(other -> conflicts(event, other));
+            assertEquals(expected, calendar.addIfNoConflict(event), event.toString());
+            if (expected) {
+                added.add(event);
+            }
+        }
+        assertTrue(added.size() < candidates.size());
+        assertEquals(added.size(), calendar.getAllOneTimeEvents().size() + calendar.getAllRecurringEvents().size());
+    }
+
+    @Test
+    void rejectSkipsConflictsWithTheCalendarAndEarlierBatchEvents() {
+        MyCalendar calendar = new MyCalendar();
+        Event existing = event("Existing", 0, 9, 0, 10, 0);
+        calendar.add(existing);
+        Event overlapsExisting = event("Overlaps existing", 0, 9, 30, 10, 30);
+        Event later = event("Later", 0, 11, 0, 12, 0);
+        Event overlapsLater = event("Overlaps later", 0, 11, 30, 12, 30);
+        Event touching = event("Touching", 0, 10, 0, 11, 0);
+
+        List<MyCalendar.AddResult> results = calendar.addAll(
+                List.of(overlapsLater, overlapsExisting, later, touching, later), ConflictPolicy.REJECT);
+
+        assertResult(results.get(0), overlapsLater, false, later);
+        assertResult(results.get(1), overlapsExisting, false, existing);
+        assertResult(results.get(2), later, true, null);
+        assertResult(results.get(3), touching, true, null);
+        // The same event twice is added once
+        assertResult(results.get(4), later, false, null);
+        assertEquals(List.of(existing, touching, later), calendar.getEventsForDate(FIRST_DAY));
+    }
+
+    @Test
+    void allOrNothingAddsNothingWhenAnyEventConflicts() {
+        MyCalendar calendar = new MyCalendar();
+        calendar.add(event("Existing", 1, 9, 0, 10, 0));
+        List<Event> batch = List.of(event("Free", 0, 9, 0, 10, 0), event("Clash", 1, 9, 59, 10, 30));
+
+        List<MyCalendar.AddResult> results = calendar.addAll(batch, ConflictPolicy.ALL_OR_NOTHING);
+
+        assertFalse(results.get(0).isAdded());
+        assertNull(results.get(0).getConflict());
+        assertFalse(results.get(1).isAdded());
+        assertEquals(1, calendar.getAllOneTimeEvents().size());
+
+        List<MyCalendar.AddResult> clean = calendar.addAll(batch.subList(0, 1), ConflictPolicy.ALL_OR_NOTHING);
+        assertTrue(clean.get(0).isAdded());
+        assertEquals(2, calendar.getAllOneTimeEvents().size());
+    }
+
+    @Test
+    void allowAddsEverythingAndReportsConflicts() {
+        MyCalendar calendar = new MyCalendar();
+        Event existing = event("Existing", 0, 9, 0, 10, 0);
+        calendar.add(existing);
+        Event clash = event("Clash", 0, 9, 30, 10, 30);
+        Event clashesWithClash = event("Clashes with clash", 0, 10, 15, 11, 0);
+
+        List<MyCalendar.AddResult> results = calendar.addAll(List.of(clashesWithClash, clash), ConflictPolicy.ALLOW);
+
+        assertResult(results.get(0), clashesWithClash, true, clash);
+        assertResult(results.get(1), clash, true, existing);
+        assertEquals(3, calendar.getEventsForDate(FIRST_DAY).size());
+    }
+
+    @Test
+    void everyPolicyAgreesWithAddingTheBatchInOrder() {
+        for (ConflictPolicy policy : ConflictPolicy.values()) {
+            MyCalendar calendar = new MyCalendar();
+            new EventGenerator(22, FIRST_DAY, DAYS, 0.2).generate(400).forEach(calendar::add);
+            List<Event> batch = new ArrayList<>(new EventGenerator(23, FIRST_DAY, DAYS, 0).generate(300));
+            Collections.shuffle(batch, new Random(23));
+
+            // The batch is decided in date, start and end order, against the calendar and what it kept
+            List<Event> order = new ArrayList<>(batch);
+            order.sort(Comparator.comparing(Event::getDate).thenComparing(Event::getStartTime).thenComparing(Event::getEndTime));
+            List<Event> kept = new ArrayList<>();
+            Set<Event> conflicting = new HashSet<>();
+            for (Event event : order) {
+                boolean conflict = calendar.hasConflict(event.getDate(), event.getTimeInterval())
+                        || kept.stream().anyMatch(other -> conflicts(event, other));
+                if (conflict) {
+                    conflicting.add(event);
+                }
+                if (!conflict || policy == ConflictPolicy.ALLOW) {
+                    kept.add(event);
+                }
+            }
+
+            int before = calendar.getAllOneTimeEvents().size();
+            List<MyCalendar.AddResult> results = calendar.addAll(batch, policy);
+            int addedCount = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                MyCalendar.AddResult result = results.get(i);
+                Event event = batch.get(i);
+                assertEquals(event, result.getEvent());
+                boolean conflict = conflicting.contains(event);
+                assertEquals(conflict, result.getConflict() != null, policy + " " + event);
+                if (conflict) {
+                    assertTrue(event.getTimeInterval().overlaps(result.getConflict().getTimeInterval()), policy + " " + result);
+                }
+                boolean added = policy == ConflictPolicy.ALLOW
+                        || (!conflict && (policy == ConflictPolicy.REJECT || conflicting.isEmpty()));
+                assertEquals(added, result.isAdded(), policy + " " + event);
+                addedCount += added ? 1 : 0;
+            }
+            assertFalse(conflicting.isEmpty());
+            assertEquals(before + addedCount, calendar.getAllOneTimeEvents().size(), policy.toString());
+        }
+    }
+
+    @Test
+    void batchesHoldOnlyOneTimeEvents() {
+        Event weekly = new Event("Weekly", interval(9, 0, 10, 0), FIRST_DAY, FIRST_DAY.plusDays(30), Event.parseDays("M"));
+        MyCalendar calendar = new MyCalendar();
+
+        assertThrows(IllegalArgumentException.class, () -> calendar.addAll(List.of(weekly), ConflictPolicy.REJECT));
+        assertEquals(0, calendar.getAllRecurringEvents().size());
+    }
+
+    /**
+     * Checks if two events overlap on some day, occurrence by occurrence.
+     */
+    private static boolean conflicts(Event a, Event b) {
+        if (!a.getTimeInterval().overlaps(b.getTimeInterval())) {
+            return false;
+        }
+        LocalDate from = a.getStartDate().isAfter(b.getStartDate()) ? a.getStartDate() : b.getStartDate();
+        LocalDate to = a.getEndDate().isBefore(b.getEndDate()) ? a.getEndDate() : b.getEndDate();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (a.occursOn(day) && b.occursOn(day)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertResult(MyCalendar.AddResult result, Event event, boolean added, Event conflict) {
+        assertEquals(event, result.getEvent());
+        assertEquals(added, result.isAdded(), result.toString());
+        assertEquals(conflict, result.getConflict(), result.toString());
+    }
+
+    private static Event event(String name, int day, int startHour, int startMinute, int endHour, int endMinute) {
+        return new Event(name, interval(startHour, startMinute, endHour, endMinute), FIRST_DAY.plusDays(day));
+    }
+
+    private static TimeInterval interval(int startHour, int startMinute, int endHour, int endMinute) {
+        return new TimeInterval(LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute));
+    }
+}
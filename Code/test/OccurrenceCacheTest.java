@@ -0,0 +1,89 @@
+/**
+*Tests for OccurrenceCache: hits within a generation, re-expansion after the recurring events of
+*a calendar change, and least recently used eviction.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+
+class OccurrenceCacheTest {
+    private static final YearMonth SEPTEMBER = YearMonth.of(2024, 9);
+    private static final TimeInterval MORNING = new TimeInterval(LocalTime.of(9, 0), LocalTime.of(10, 0));
+
+    @Test
+    void servesAMaskOnlyForTheGenerationItWasExpandedFrom() {
+        OccurrenceCache cache = new OccurrenceCache(4);
+        int[] expansions = new int[1];
+
+        assertEquals(1, cache.getMonthMask(SEPTEMBER, 0, month -> ++expansions[0]));
+        assertEquals(1, cache.getMonthMask(SEPTEMBER, 0, month -> ++expansions[0]));
+        assertEquals(2, cache.getMonthMask(SEPTEMBER, 1, month -> ++expansions[0]));
+        assertEquals(2, expansions[0]);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedMonth() {
+        OccurrenceCache cache = new OccurrenceCache(2);
+        cache.getMonthMask(SEPTEMBER, 0, month -> 1);
+        cache.getMonthMask(SEPTEMBER.plusMonths(1), 0, month -> 2);
+        cache.getMonthMask(SEPTEMBER, 0, month -> -1);
+        cache.getMonthMask(SEPTEMBER.plusMonths(2), 0, month -> 3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        // September was used last, so October went
+        assertEquals(1, cache.getMonthMask(SEPTEMBER, 0, month -> -1));
+        assertEquals(4, cache.getMonthMask(SEPTEMBER.plusMonths(1), 0, month -> 4));
+    }
+
+    @Test
+    void aChangeToTheRecurringEventsInvalidatesCachedMonths() {
+        MyCalendar calendar = new MyCalendar();
+        OccurrenceCache cache = calendar.getOccurrenceCache();
+        LocalDate from = SEPTEMBER.atDay(1);
+        LocalDate to = SEPTEMBER.atEndOfMonth();
+        // Mondays of September 2024: the 2nd, 9th, 16th, 23rd and 30th
+        Event mondays = new Event("Mondays", MORNING, from, to, Event.parseDays("M"));
+        calendar.add(mondays);
+
+        assertEquals(bits(1, 8, 15, 22, 29), calendar.getOccupancy(from, to));
+        assertEquals(bits(1, 8, 15, 22, 29), calendar.getOccupancy(from, to));
+        assertEquals(1, cache.getHits());
+
+        Event fridays = new Event("Fridays", MORNING, from, to, Event.parseDays("F"));
+        calendar.add(fridays);
+        assertEquals(bits(1, 5, 8, 12, 15, 19, 22, 26, 29), calendar.getOccupancy(from, to));
+
+        calendar.remove(mondays);
+        assertEquals(bits(5, 12, 19, 26), calendar.getOccupancy(from, to));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+        // One-time events are read from the date index and leave the cached month in place
+        calendar.add(new Event("Dentist", MORNING, from));
+        assertEquals(bits(0, 5, 12, 19, 26), calendar.getOccupancy(from, to));
+        assertEquals(2, cache.getHits());
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
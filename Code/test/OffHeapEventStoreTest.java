@@ -0,0 +1,144 @@
+/**
+*Tests for OffHeapEventStore: lookups, conflict checks, occupancy and removals against MyCalendar,
+*conflict-checked and batch adds with ids in any order, and events the records cannot hold.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+
+class OffHeapEventStoreTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 300;
+
+    @Test
+    void answersLikeMyCalendarThroughAddsAndRemovals() {
+        Random random = new Random(24);
+        List<Event> events = new EventGenerator(24, FIRST_DAY, DAYS, 0.2).generate(4000);
+        MyCalendar calendar = new MyCalendar();
+        OffHeapEventStore store = new OffHeapEventStore();
+        events.forEach(calendar::add);
+        events.forEach(store::add);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 200; i++) {
+                LocalDate date = FIRST_DAY.plusDays(random.nextInt(DAYS + 20) - 10);
+                assertEquals(describe(calendar.getEventsForDate(date)), describe(store.getEventsForDate(date)), date.toString());
+                int start = random.nextInt(23 * 60);
+                TimeInterval interval = new TimeInterval(LocalTime.of(start / 60, start % 60),
+                        LocalTime.of(start / 60, start % 60).plusMinutes(random.nextInt(60)));
+                assertEquals(calendar.hasConflict(date, interval), store.hasConflict(date, interval));
+                assertEquals(describe(calendar.findConflicts(date, interval)), describe(store.findConflicts(date, interval)));
+            }
+            LocalDate from = FIRST_DAY.minusDays(5);
+            LocalDate to = FIRST_DAY.plusDays(DAYS + 30);
+            assertEquals(calendar.getOccupancy(from, to), store.getOccupancy(from, to));
+            assertEquals(strings(calendar.occurrences(FIRST_DAY.plusDays(40), FIRST_DAY.plusDays(60)).collect(Collectors.toList())),
+                    strings(store.occurrences(FIRST_DAY.plusDays(40), FIRST_DAY.plusDays(60)).collect(Collectors.toList())));
+
+            List<Event> recurring = calendar.getAllRecurringEvents();
+            String name = recurring.get(random.nextInt(recurring.size())).getName();
+            assertEquals(calendar.removeRecurringByName(name), store.removeRecurringByName(name));
+            LocalDate day = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            assertEquals(calendar.removeOneTimeEventsOn(day), store.removeOneTimeEventsOn(day));
+            List<Event> oneTime = calendar.getAllOneTimeEvents();
+            for (int i = 0; i < 50; i++) {
+                Event event = oneTime.get(random.nextInt(oneTime.size()));
+                assertEquals(calendar.removeById(event.getId()), store.removeById(event.getId()));
+            }
+            assertEquals(calendar.getAllOneTimeEvents().size() + calendar.getAllRecurringEvents().size(), store.size());
+        }
+    }
+
+    @Test
+    void addIfNoConflictAgreesWithMyCalendar() {
+        List<Event> events = new ArrayList<>(new EventGenerator(25, FIRST_DAY, DAYS, 0.3).generate(3000));
+        Collections.shuffle(events, new Random(25));
+        MyCalendar calendar = new MyCalendar();
+        OffHeapEventStore store = new OffHeapEventStore();
+        int added = 0;
+        for (Event event : events) {
+            boolean expected = calendar.addIfNoConflict(event);
+            assertEquals(expected, store.addIfNoConflict(event), event.toString());
+            added += expected ? 1 : 0;
+        }
+        assertTrue(added < events.size());
+        assertEquals(added, store.size());
+    }
+
+    @Test
+    void addAllAgreesWithMyCalendarWhenIdsArriveInAnyOrder() {
+        List<Event> base = new ArrayList<>(new EventGenerator(26, FIRST_DAY, DAYS, 0.2).generate(2000));
+        // Adding out of id order leaves the store without its binary search by id
+        Collections.shuffle(base, new Random(26));
+        List<Event> batch = new ArrayList<>(new EventGenerator(27, FIRST_DAY, DAYS, 0).generate(500));
+        Event stored = base.stream().filter(event -> !event.isRecurring()).findFirst().get();
+        batch.add(stored);
+        batch.add(batch.get(2));
+        Collections.shuffle(batch, new Random(27));
+
+        for (ConflictPolicy policy : ConflictPolicy.values()) {
+            MyCalendar calendar = new MyCalendar();
+            OffHeapEventStore store = new OffHeapEventStore();
+            base.forEach(calendar::add);
+            base.forEach(store::add);
+            List<MyCalendar.AddResult> expected = calendar.addAll(batch, policy);
+            List<MyCalendar.AddResult> actual = store.addAll(batch, policy);
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(expected.get(i).isAdded(), actual.get(i).isAdded(), policy + " " + batch.get(i));
+                assertEquals(expected.get(i).getConflict() == null, actual.get(i).getConflict() == null, policy + " " + batch.get(i));
+            }
+            assertEquals(calendar.getAllOneTimeEvents().size() + calendar.getAllRecurringEvents().size(), store.size());
+        }
+    }
+
+    @Test
+    void comparesQueriesFinerThanASecondExactly() {
+        OffHeapEventStore store = new OffHeapEventStore();
+        Event nine = new Event("Nine", new TimeInterval(LocalTime.of(9, 0), LocalTime.of(9, 0, 1)), FIRST_DAY);
+        store.add(nine);
+
+        assertTrue(store.hasConflict(FIRST_DAY, new TimeInterval(LocalTime.of(9, 0, 0, 500), LocalTime.of(9, 0, 0, 600))));
+        assertFalse(store.hasConflict(FIRST_DAY, new TimeInterval(LocalTime.of(8, 59, 59, 500), LocalTime.of(9, 0))));
+        assertFalse(store.hasConflict(FIRST_DAY, new TimeInterval(LocalTime.of(9, 0, 1), LocalTime.of(9, 0, 1, 500))));
+        // A different event that only matches to the second is not removed
+        store.remove(new Event("Nine", new TimeInterval(LocalTime.of(9, 0, 0, 1), LocalTime.of(9, 0, 1)), FIRST_DAY));
+        assertEquals(1, store.size());
+
+        Event blink = new Event("Blink", new TimeInterval(LocalTime.of(10, 0, 0, 500), LocalTime.of(10, 1)), FIRST_DAY);
+        assertThrows(IllegalArgumentException.class, () -> store.add(blink));
+        assertEquals(1, store.size());
+    }
+
+    private static List<String> describe(List<Event> events) {
+        List<String> lines = new ArrayList<>();
+        for (Event event : events) {
+            lines.add(event.getId() + " " + event.getName() + " " + event.getTimeInterval() + " " + event.getStartDate()
+                    + " " + event.getEndDate() + " " + event.getDayMask() + " " + event.isRecurring());
+        }
+        return lines;
+    }
+
+    private static List<String> strings(List<?> items) {
+        List<String> strings = new ArrayList<>();
+        items.forEach(item -> strings.add(item.toString()));
+        return strings;
+    }
+}
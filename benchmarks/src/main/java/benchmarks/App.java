@@ -0,0 +1,103 @@
+/**
+*Method handles to the calendar classes for the JMH benchmarks. JMH does not accept benchmarks in
+*the default package, and a class in a named package cannot name the calendar's classes, which
+*live in the default package, so the benchmarks call them through these handles. The handles are
+*static final constants with Object types, which the JIT inlines like direct calls.
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+package benchmarks;
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+
+final class App {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    static final Class<?> MY_CALENDAR = load("MyCalendar");
+    static final Class<?> EVENT = load("Event");
+    static final Class<?> TIME_INTERVAL = load("TimeInterval");
+    static final Class<?> EVENT_GENERATOR = load("EventGenerator");
+    static final Class<?> CALENDAR_PRINTER = load("CalendarPrinter");
+
+    // () -> MyCalendar
+    static final MethodHandle NEW_CALENDAR = constructor(MY_CALENDAR);
+    // (MyCalendar, String) -> void
+    static final MethodHandle LOAD_EVENTS = virtual(MY_CALENDAR, "loadEvents", void.class, String.class);
+    static final MethodHandle LOAD_SNAPSHOT = virtual(MY_CALENDAR, "loadSnapshot", void.class, String.class);
+    static final MethodHandle SAVE_SNAPSHOT = virtual(MY_CALENDAR, "saveSnapshot", void.class, String.class);
+    // (MyCalendar, Event) -> void
+    static final MethodHandle ADD = virtual(MY_CALENDAR, "add", void.class, EVENT);
+    // (MyCalendar, LocalDate) -> List<Event>
+    static final MethodHandle GET_EVENTS_FOR_DATE = virtual(MY_CALENDAR, "getEventsForDate", List.class, LocalDate.class);
+    // (MyCalendar, LocalDate, TimeInterval) -> boolean
+    static final MethodHandle HAS_CONFLICT = virtual(MY_CALENDAR, "hasConflict", boolean.class, LocalDate.class, TIME_INTERVAL);
+
+    // (Event) -> TimeInterval
+    static final MethodHandle GET_TIME_INTERVAL = virtual(EVENT, "getTimeInterval", TIME_INTERVAL);
+    // (Event) -> String
+    static final MethodHandle TO_SAVE = virtual(EVENT, "toSave", String.class);
+    // (TimeInterval, TimeInterval) -> boolean
+    static final MethodHandle OVERLAPS = virtual(TIME_INTERVAL, "overlaps", boolean.class, TIME_INTERVAL);
+    // (LocalTime, LocalTime) -> TimeInterval
+    static final MethodHandle NEW_TIME_INTERVAL = constructor(TIME_INTERVAL, LocalTime.class, LocalTime.class);
+
+    // (long seed, LocalDate firstDay, int days, double recurringShare) -> EventGenerator
+    static final MethodHandle NEW_GENERATOR = constructor(EVENT_GENERATOR, long.class, LocalDate.class, int.class, double.class);
+    // (EventGenerator, int) -> List<Event>
+    static final MethodHandle GENERATE = virtual(EVENT_GENERATOR, "generate", List.class, int.class);
+    // (EventGenerator, String, int) -> void
+    static final MethodHandle WRITE_EVENTS_FILE = virtual(EVENT_GENERATOR, "writeEventsFile", void.class, String.class, int.class);
+
+    // () -> CalendarPrinter
+    static final MethodHandle NEW_PRINTER = constructor(CALENDAR_PRINTER);
+    // (CalendarPrinter, LocalDate, MyCalendar, Appendable) -> void
+    static final MethodHandle RENDER_MONTH = virtual(CALENDAR_PRINTER, "renderMonth", void.class,
+            LocalDate.class, MY_CALENDAR, Appendable.class);
+
+    private App() {
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Finds a public constructor and erases its types to Object, keeping primitives.
+     */
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) {
+        try {
+            return erase(LOOKUP.findConstructor(type, MethodType.methodType(void.class, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Finds a public instance method and erases its types to Object, keeping primitives.
+     */
+    private static MethodHandle virtual(Class<?> type, String name, Class<?> result, Class<?>... parameters) {
+        try {
+            return erase(LOOKUP.findVirtual(type, name, MethodType.methodType(result, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle erase(MethodHandle handle) {
+        return handle.asType(handle.type().erase());
+    }
+}
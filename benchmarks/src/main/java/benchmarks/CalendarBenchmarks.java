@@ -0,0 +1,171 @@
+/**
+*JMH benchmarks for the calendar's hot paths on data sets built by EventGenerator: loading,
+*date lookup, conflict checks, month rendering and saving. Each benchmark runs at 1k, 100k
+*and 1M events. Build with mvn package and run with java -jar benchmarks/target/benchmarks.jar,
+*for example: java -jar benchmarks/target/benchmarks.jar -p size=100000 getEventsForDate
+* CS151 Hw1 Solution
+*Instructor: Dr.Kim
+* @author: Angie Do
+* Date: 09/14/2024
+*/
+
+package benchmarks;
+
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarBenchmarks {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 2 * 365;
+    private static final double RECURRING_SHARE = 0.1;
+    // Lookups cycle through this many precomputed dates and slots
+    private static final int LOOKUPS = 1 << 12;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private File eventsFile;
+    private File snapshotFile;
+    private Object calendar;
+    private List<?> events;
+    private Object printer;
+    private LocalDate[] dates;
+    private Object[] slots;
+    private int next;
+    private PrintStream console;
+
+    /**
+     * Generates the data set, writes it as an events file and a snapshot, and loads it into a calendar.
+     * @throws Throwable if the files cannot be written or read
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        eventsFile = File.createTempFile("events", ".txt");
+        snapshotFile = File.createTempFile("events", ".snapshot");
+        Object generator = (Object) App.NEW_GENERATOR.invokeExact(42L, (Object) FIRST_DAY, DAYS, RECURRING_SHARE);
+        App.WRITE_EVENTS_FILE.invokeExact(generator, (Object) eventsFile.getPath(), size);
+
+        generator = (Object) App.NEW_GENERATOR.invokeExact(42L, (Object) FIRST_DAY, DAYS, RECURRING_SHARE);
+        events = (List<?>) (Object) App.GENERATE.invokeExact(generator, size);
+        calendar = (Object) App.NEW_CALENDAR.invokeExact();
+        for (Object event : events) {
+            App.ADD.invokeExact(calendar, event);
+        }
+        App.SAVE_SNAPSHOT.invokeExact(calendar, (Object) snapshotFile.getPath());
+        printer = (Object) App.NEW_PRINTER.invokeExact();
+
+        Random random = new Random(7);
+        dates = new LocalDate[LOOKUPS];
+        slots = new Object[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            dates[i] = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            int start = 8 * 60 + random.nextInt(10 * 60);
+            slots[i] = (Object) App.NEW_TIME_INTERVAL.invokeExact((Object) LocalTime.of(start / 60, start % 60),
+                    (Object) LocalTime.of((start + 30) / 60, (start + 30) % 60));
+        }
+
+        // The loaders report on System.out
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores System.out and deletes the generated files.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+        eventsFile.delete();
+        snapshotFile.delete();
+    }
+
+    @Benchmark
+    public Object loadEvents() throws Throwable {
+        Object loaded = (Object) App.NEW_CALENDAR.invokeExact();
+        App.LOAD_EVENTS.invokeExact(loaded, (Object) eventsFile.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public Object loadSnapshot() throws Throwable {
+        Object loaded = (Object) App.NEW_CALENDAR.invokeExact();
+        App.LOAD_SNAPSHOT.invokeExact(loaded, (Object) snapshotFile.getPath());
+        return loaded;
+    }
+
+    @Benchmark
+    public Object getEventsForDate() throws Throwable {
+        return (Object) App.GET_EVENTS_FOR_DATE.invokeExact(calendar, (Object) dates[next++ & (LOOKUPS - 1)]);
+    }
+
+    /**
+     * The conflict check as the original code did it: scan the day's events with {@code overlaps}.
+     */
+    @Benchmark
+    public boolean conflictOverlapsScan() throws Throwable {
+        int i = next++ & (LOOKUPS - 1);
+        Object slot = slots[i];
+        for (Object event : (List<?>) (Object) App.GET_EVENTS_FOR_DATE.invokeExact(calendar, (Object) dates[i])) {
+            Object interval = (Object) App.GET_TIME_INTERVAL.invokeExact(event);
+            if ((boolean) App.OVERLAPS.invokeExact(interval, slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean hasConflict() throws Throwable {
+        int i = next++ & (LOOKUPS - 1);
+        return (boolean) App.HAS_CONFLICT.invokeExact(calendar, (Object) dates[i], slots[i]);
+    }
+
+    /**
+     * Renders one month view, cycling through the months of the data set, into a sink that drops it.
+     */
+    @Benchmark
+    public void renderMonth() throws Throwable {
+        LocalDate month = FIRST_DAY.plusMonths(Math.floorMod(next++, DAYS / 30));
+        App.RENDER_MONTH.invokeExact(printer, (Object) month, calendar, (Object) Writer.nullWriter());
+    }
+
+    /**
+     * Formats every event of the data set for saving.
+     */
+    @Benchmark
+    public void toSave(Blackhole blackhole) throws Throwable {
+        for (Object event : events) {
+            blackhole.consume((Object) App.TO_SAVE.invokeExact(event));
+        }
+    }
+}